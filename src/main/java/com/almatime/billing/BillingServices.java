@@ -8,6 +8,7 @@ import com.almatime.utils.Log;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Provides no ads purchase option. Activity must implement {@link BillingServicesListener}.
@@ -17,6 +18,9 @@ import java.util.List;
  *
  * <b>R.string.license_key</b> - put your developer public encoded app key.
  *
+ * Listener callbacks run on the main thread, or on the executor set by
+ * {@link #setCallbackExecutor(Executor)}, i.e. {@link com.almatime.utils.FrameCallbackExecutor}.
+ *
  * @author Alex K
  * @version 1.0.0, 09/11/2018.
  * @since 1.0.0
@@ -29,6 +33,8 @@ public class BillingServices {
 
     private Activity activity;
     private BillingServicesListener listener;
+    // runs listener callbacks, null to call them on the thread of the result
+    private volatile Executor callbackExecutor;
 
     private IabHelper iabHelper;
 
@@ -46,6 +52,50 @@ public class BillingServices {
         return instance;
     }
 
+    /**
+     * Sets the executor which runs listener callbacks. Null, by default, calls them on the main
+     * thread.
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    private void deliver(Runnable callback) {
+        Executor executor = callbackExecutor;
+        if (executor != null) {
+            executor.execute(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    private void notifyBillingError(final Exception e, final String msgForUser) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                if (listener != null) listener.onBillingError(e, msgForUser);
+            }
+        });
+    }
+
+    private void notifyQueryInventoryCompleted(final boolean isPurchasedNoAds) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                if (listener != null) listener.onQueryInventoryCompleted(isPurchasedNoAds);
+            }
+        });
+    }
+
+    private void notifyPurchaseFlowCompleted(final boolean isSuccess) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                if (listener != null) listener.onPurchaseFlowCompleted(isSuccess);
+            }
+        });
+    }
+
     public boolean isInAppBillingSetup() {
         return inAppBillingSetup;
     }
@@ -93,7 +143,7 @@ public class BillingServices {
             iabHelper.queryInventoryAsync(true, additionalSkuList, null, queryFinishedListener);
         } catch (IabHelper.IabAsyncInProgressException e) {
             Log.e(e);
-            listener.onBillingError(e, activity.getString(R.string.error_restart));
+            notifyBillingError(e, activity.getString(R.string.error_restart));
         } catch (IllegalStateException e) {
             Log.e(e);
         } catch (Exception e) {
@@ -112,7 +162,7 @@ public class BillingServices {
             try {
                 iabHelper.launchPurchaseFlow(activity, SKU_REMOVE_ADS, RC_PURCHASE, purchaseFinishedListener, "");
             } catch (Exception e) {
-                listener.onBillingError(e, activity.getString(R.string.unknown_error_check_restart));
+                notifyBillingError(e, activity.getString(R.string.unknown_error_check_restart));
             }
         }
     }
@@ -154,7 +204,7 @@ public class BillingServices {
             }
             Log.i("onQueryInventoryFinished is purchased = " + inventory.hasPurchase(SKU_REMOVE_ADS));
 
-            listener.onQueryInventoryCompleted(inventory.hasPurchase(SKU_REMOVE_ADS));
+            notifyQueryInventoryCompleted(inventory.hasPurchase(SKU_REMOVE_ADS));
         }
     };
 
@@ -173,15 +223,15 @@ public class BillingServices {
                 return; // if user cancelled operation
             }
             if (result.isSuccess()) {
-                listener.onPurchaseFlowCompleted(true);
+                notifyPurchaseFlowCompleted(true);
             } else {
                 switch (result.getResponse()) {
                     case IabHelper.BILLING_RESPONSE_RESULT_ITEM_ALREADY_OWNED:
-                        listener.onBillingError(null, activity.getString(R.string.error_billing_already_owned));
+                        notifyBillingError(null, activity.getString(R.string.error_billing_already_owned));
                         break;
 
                     default:
-                        listener.onBillingError(null, activity.getString(R.string.error_restart));
+                        notifyBillingError(null, activity.getString(R.string.error_restart));
                 }
             }
         }
@@ -0,0 +1,117 @@
+package com.almatime.gameservices;
+
+import com.google.android.gms.games.achievement.Achievement;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory states of the player achievements, loaded once per session and kept up to date with
+ * local unlocks and increments. Lets {@link GameServices} skip calls for achievements which are
+ * already unlocked, and tells the steps known on server which journaled increments are set on
+ * top of.
+ *
+ * Thread safe, lookups don't allocate.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class AchievementIndex {
+
+    private static class State {
+        volatile boolean unlocked;
+        final AtomicInteger currentSteps = new AtomicInteger();
+        // steps loaded from server or confirmed by it, without local increments in flight
+        final AtomicInteger serverSteps = new AtomicInteger();
+        int totalSteps; // 0 for standard achievements
+    }
+
+    private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<String, State>();
+    private volatile boolean loaded;
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replaces the index with the loaded achievements. Unlocks made locally before the load
+     * are kept.
+     */
+    void load(AchievementBuffer buffer) {
+        for (Achievement achievement : buffer) {
+            State state = new State();
+            state.unlocked = achievement.getState() == Achievement.STATE_UNLOCKED;
+            if (achievement.getType() == Achievement.TYPE_INCREMENTAL) {
+                state.totalSteps = achievement.getTotalSteps();
+                state.currentSteps.set(achievement.getCurrentSteps());
+                state.serverSteps.set(achievement.getCurrentSteps());
+            }
+            State previous = states.put(achievement.getAchievementId(), state);
+            if ((previous != null) && previous.unlocked) {
+                state.unlocked = true;
+            }
+        }
+        loaded = true;
+    }
+
+    boolean isUnlocked(String achievementId) {
+        State state = states.get(achievementId);
+        return (state != null) && state.unlocked;
+    }
+
+    void markUnlocked(String achievementId) {
+        State state = states.get(achievementId);
+        if (state != null) {
+            state.unlocked = true;
+        }
+    }
+
+    /**
+     * Reverts a local unlock whose submission failed.
+     */
+    void markLocked(String achievementId) {
+        State state = states.get(achievementId);
+        if ((state != null) && (state.totalSteps == 0)) {
+            state.unlocked = false;
+        }
+    }
+
+    /**
+     * Adds steps to an incremental achievement, which becomes unlocked when all steps are done.
+     */
+    void addSteps(String achievementId, int steps) {
+        State state = states.get(achievementId);
+        if ((state != null) && (state.totalSteps > 0)
+                && (state.currentSteps.addAndGet(steps) >= state.totalSteps)) {
+            state.unlocked = true;
+        }
+    }
+
+    /**
+     * @return steps of the incremental achievement known on server, -1 if it isn't loaded or
+     * isn't incremental.
+     */
+    int getServerSteps(String achievementId) {
+        State state = states.get(achievementId);
+        return ((state != null) && (state.totalSteps > 0)) ? state.serverSteps.get() : -1;
+    }
+
+    /**
+     * Raises the steps known on server to the steps it confirmed setting.
+     */
+    void onStepsSet(String achievementId, int steps) {
+        State state = states.get(achievementId);
+        if (state == null) return;
+        int known = state.serverSteps.get();
+        while ((steps > known) && !state.serverSteps.compareAndSet(known, steps)) {
+            known = state.serverSteps.get();
+        }
+    }
+
+    void clear() {
+        loaded = false;
+        states.clear();
+    }
+
+}
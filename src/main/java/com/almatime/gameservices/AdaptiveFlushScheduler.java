@@ -0,0 +1,62 @@
+package com.almatime.gameservices;
+
+/**
+ * Derives the scale of the flush intervals from the observed completion latency and failure rate
+ * of the submission Tasks, both smoothed with an exponentially weighted moving average. While the
+ * server answers fast the configured intervals are used, when it slows down or fails the buffered
+ * work is held longer, so fewer and larger submissions are sent.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class AdaptiveFlushScheduler {
+
+    interface Listener {
+
+        void onFlushScaleChanged(double scale);
+    }
+
+    // weight of the latest observation in the moving averages
+    private static final double ALPHA = 0.2;
+    // latency up to which the configured intervals are kept
+    private static final double TARGET_LATENCY_MS = 1000;
+    // weight of the failure rate, all failing multiplies the intervals by 1 + this
+    private static final double FAILURE_WEIGHT = 4;
+    private static final double MAX_SCALE = 8;
+    // changes below this don't reschedule the flushes
+    private static final double MIN_SCALE_CHANGE = 0.25;
+
+    private final Listener listener;
+    private double latencyAverageMs;
+    private double failureRate;
+    private boolean observed;
+    private double scale = 1;
+
+    AdaptiveFlushScheduler(Listener listener) {
+        this.listener = listener;
+    }
+
+    void onTaskCompleted(long latencyMs, boolean successful) {
+        double newScale;
+        synchronized (this) {
+            double failure = successful ? 0 : 1;
+            if (observed) {
+                latencyAverageMs += ALPHA * (latencyMs - latencyAverageMs);
+                failureRate += ALPHA * (failure - failureRate);
+            } else {
+                latencyAverageMs = latencyMs;
+                failureRate = failure;
+                observed = true;
+            }
+            newScale = Math.max(1, latencyAverageMs / TARGET_LATENCY_MS)
+                    * (1 + FAILURE_WEIGHT * failureRate);
+            newScale = Math.min(MAX_SCALE, newScale);
+            if (Math.abs(newScale - scale) < MIN_SCALE_CHANGE) return;
+            scale = newScale;
+        }
+        listener.onFlushScaleChanged(newScale);
+    }
+
+}
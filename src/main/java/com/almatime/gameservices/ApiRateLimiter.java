@@ -0,0 +1,89 @@
+package com.almatime.gameservices;
+
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per Play Games API family, so bursts of submissions don't exceed the per player
+ * quotas. A call takes a token, tokens refill at a steady rate up to the burst size. Work over
+ * the budget is kept by the caller and sent once tokens are available.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class ApiRateLimiter {
+
+    private static class TokenBucket {
+        double capacity;
+        double tokensPerNano;
+        double tokens;
+        long refilledAtNanos;
+
+        TokenBucket(int burst, int perMinute) {
+            setLimit(burst, perMinute);
+            tokens = capacity;
+            refilledAtNanos = System.nanoTime();
+        }
+
+        void setLimit(int burst, int perMinute) {
+            capacity = burst;
+            tokensPerNano = (double) perMinute / TimeUnit.MINUTES.toNanos(1);
+            tokens = Math.min(tokens, capacity);
+        }
+
+        void refill(long nowNanos) {
+            tokens = Math.min(capacity, tokens + (nowNanos - refilledAtNanos) * tokensPerNano);
+            refilledAtNanos = nowNanos;
+        }
+    }
+
+    private final EnumMap<GameServices.SetClient, TokenBucket> buckets =
+            new EnumMap<GameServices.SetClient, TokenBucket>(GameServices.SetClient.class);
+
+    ApiRateLimiter(int burst, int perMinute) {
+        buckets.put(GameServices.SetClient.ACHIEVEMENTS, new TokenBucket(burst, perMinute));
+        buckets.put(GameServices.SetClient.LEADERBOARD, new TokenBucket(burst, perMinute));
+        buckets.put(GameServices.SetClient.EVENTS, new TokenBucket(burst, perMinute));
+    }
+
+    /**
+     * @param family ACHIEVEMENTS, LEADERBOARD or EVENTS.
+     */
+    synchronized void setLimit(GameServices.SetClient family, int burst, int perMinute) {
+        bucketOf(family).setLimit(burst, perMinute);
+    }
+
+    /**
+     * @return true if the call fits the budget of the family and a token was taken.
+     */
+    synchronized boolean tryAcquire(GameServices.SetClient family) {
+        TokenBucket bucket = bucketOf(family);
+        bucket.refill(System.nanoTime());
+        if (bucket.tokens < 1) return false;
+        bucket.tokens -= 1;
+        return true;
+    }
+
+    /**
+     * @return time until the family has a token, 0 if it has one now.
+     */
+    synchronized long getDelayMs(GameServices.SetClient family) {
+        TokenBucket bucket = bucketOf(family);
+        bucket.refill(System.nanoTime());
+        if (bucket.tokens >= 1) return 0;
+        if (bucket.tokensPerNano <= 0) return Long.MAX_VALUE;
+        return TimeUnit.NANOSECONDS.toMillis((long) Math.ceil((1 - bucket.tokens)
+                / bucket.tokensPerNano)) + 1;
+    }
+
+    private TokenBucket bucketOf(GameServices.SetClient family) {
+        TokenBucket bucket = buckets.get(family);
+        if (bucket == null) {
+            throw new IllegalArgumentException("No rate limit of " + family + " API");
+        }
+        return bucket;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.almatime.gameservices;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds a single shared background thread for disk I/O and delayed flushes of game services
+ * work, so nothing of it runs on the main or on the game thread, and a small pool for work which
+ * may run concurrently.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+final class BackgroundExecutor {
+
+    private static final int PARALLEL_THREADS = 4;
+    private static final long PARALLEL_KEEP_ALIVE_SEC = 30;
+
+    private static ScheduledExecutorService executor;
+    private static ExecutorService parallelExecutor;
+
+    private BackgroundExecutor() {
+    }
+
+    static synchronized ScheduledExecutorService get() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("background"));
+        }
+        return executor;
+    }
+
+    /**
+     * @return pool of a few threads which are stopped when idle.
+     */
+    static synchronized ExecutorService parallel() {
+        if (parallelExecutor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(PARALLEL_THREADS, PARALLEL_THREADS,
+                    PARALLEL_KEEP_ALIVE_SEC, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new DaemonThreadFactory("parallel"));
+            pool.allowCoreThreadTimeOut(true);
+            parallelExecutor = pool;
+        }
+        return parallelExecutor;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        DaemonThreadFactory(String name) {
+            namePrefix = "gameServices-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
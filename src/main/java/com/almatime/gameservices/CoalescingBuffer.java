@@ -0,0 +1,116 @@
+package com.almatime.gameservices;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces scores submitted per leaderboard within a flush window and sends the best score of
+ * each leaderboard when the window ends or on {@link #flush()}. Scores are compared by
+ * {@link ScoreOrders}, the same as in the offline journal.
+ *
+ * Thread safe and lock free, {@link #offer(String, long, int)} doesn't allocate for registered
+ * ids.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class CoalescingBuffer {
+
+    interface Sender {
+
+        void send(String id, long value);
+    }
+
+    // marks an empty slot, nothing to send
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final Sender sender;
+    private final ConcurrentHashMap<String, AtomicLong> slots =
+            new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile long flushIntervalMs;
+    // multiplier of the flush interval set by the adaptive flush scheduler
+    private volatile double intervalScale = 1;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    CoalescingBuffer(Sender sender, long flushIntervalMs) {
+        this.sender = sender;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Creates slots ahead, so offering values of these ids doesn't allocate.
+     */
+    void register(String[] ids) {
+        if (ids == null) return;
+        for (String id : ids) {
+            slotOf(id);
+        }
+    }
+
+    void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Stretches the flush interval, applied from the next window.
+     */
+    void setIntervalScale(double intervalScale) {
+        this.intervalScale = intervalScale;
+    }
+
+    long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    /**
+     * Merges the score into the current window and schedules the window flush.
+     *
+     * @param scoreOrder known score order of the leaderboard, see {@link ScoreOrders#isKnown}.
+     */
+    void offer(String id, long value, int scoreOrder) {
+        AtomicLong slot = slotOf(id);
+        long best = slot.get();
+        while (((best == EMPTY) || ScoreOrders.isBetter(scoreOrder, value, best))
+                && !slot.compareAndSet(best, value)) {
+            best = slot.get();
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            BackgroundExecutor.get().schedule(flushTask, (long) (flushIntervalMs * intervalScale),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the merged value of each id collected since the last flush.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        for (Map.Entry<String, AtomicLong> entry : slots.entrySet()) {
+            long value = entry.getValue().getAndSet(EMPTY);
+            if (value != EMPTY) {
+                sender.send(entry.getKey(), value);
+            }
+        }
+    }
+
+    private AtomicLong slotOf(String id) {
+        AtomicLong slot = slots.get(id);
+        if (slot == null) {
+            AtomicLong newSlot = new AtomicLong(EMPTY);
+            slot = slots.putIfAbsent(id, newSlot);
+            if (slot == null) slot = newSlot;
+        }
+        return slot;
+    }
+
+}
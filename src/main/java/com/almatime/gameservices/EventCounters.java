@@ -0,0 +1,160 @@
+package com.almatime.gameservices;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates event increments per event id and hands the totals to the sender once per flush
+ * window or on {@link #flush()}.
+ *
+ * Counters of the registered events are striped by thread, so threads recording the same event
+ * don't contend on one cache line. Recording a registered event doesn't allocate; unknown ids
+ * get a counter on their first use.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class EventCounters {
+
+    // power of 2, number of counters per event
+    private static final int STRIPES = 4;
+    // counters of the same event are spaced by a cache line of longs
+    private static final int STRIDE = 8;
+
+    interface Sender {
+
+        void send(String eventId, long count);
+    }
+
+    /**
+     * Registered events, replaced as a whole so a recording thread never sees the indexes of one
+     * registration with the counters of another.
+     */
+    private static final class Registry {
+
+        // id -> index in counters
+        final Map<String, Integer> indexes;
+        final String[] ids;
+        final AtomicLongArray counters;
+
+        Registry(Map<String, Integer> indexes, String[] ids) {
+            this.indexes = indexes;
+            this.ids = ids;
+            this.counters = new AtomicLongArray(ids.length * STRIPES * STRIDE);
+        }
+    }
+
+    private final Sender sender;
+    private final long flushIntervalMs;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile Registry registry =
+            new Registry(new HashMap<String, Integer>(), new String[0]);
+    // replaced registries, a thread which read one just before the swap may still add to it.
+    // Drained on the next two flushes, guarded by this
+    private List<Registry> retiredSinceFlush = new ArrayList<Registry>();
+    private List<Registry> retiredBeforeFlush = new ArrayList<Registry>();
+
+    private final ConcurrentHashMap<String, AtomicLong> unknownCounters =
+            new ConcurrentHashMap<String, AtomicLong>();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    EventCounters(Sender sender, long flushIntervalMs) {
+        this.sender = sender;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Creates striped counters of the events. Call it before recording.
+     */
+    synchronized void register(String[] eventIds) {
+        if (eventIds == null) return;
+        Map<String, Integer> newIndexes = new HashMap<String, Integer>();
+        for (String id : eventIds) {
+            if (!newIndexes.containsKey(id)) {
+                newIndexes.put(id, newIndexes.size());
+            }
+        }
+        String[] newIds = new String[newIndexes.size()];
+        for (Map.Entry<String, Integer> entry : newIndexes.entrySet()) {
+            newIds[entry.getValue()] = entry.getKey();
+        }
+        Registry oldRegistry = registry;
+        registry = new Registry(newIndexes, newIds);
+        // counts recorded before registration are not lost, late ones are sent on the next flush
+        sendTotals(oldRegistry);
+        retiredSinceFlush.add(oldRegistry);
+    }
+
+    void record(String eventId, long count) {
+        Registry current = registry;
+        Integer index = current.indexes.get(eventId);
+        if (index != null) {
+            int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+            current.counters.addAndGet((index * STRIPES + stripe) * STRIDE, count);
+        } else {
+            AtomicLong counter = unknownCounters.get(eventId);
+            if (counter == null) {
+                AtomicLong newCounter = new AtomicLong();
+                counter = unknownCounters.putIfAbsent(eventId, newCounter);
+                if (counter == null) counter = newCounter;
+            }
+            counter.addAndGet(count);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            BackgroundExecutor.get().schedule(flushTask, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the total count of each event recorded since the last flush.
+     */
+    synchronized void flush() {
+        flushScheduled.set(false);
+        sendTotals(registry);
+        // a recording thread holds a registry for one record() only, by the second flush after
+        // the swap nothing adds to it
+        for (Registry retiredRegistry : retiredBeforeFlush) {
+            sendTotals(retiredRegistry);
+        }
+        for (Registry retiredRegistry : retiredSinceFlush) {
+            sendTotals(retiredRegistry);
+        }
+        retiredBeforeFlush = retiredSinceFlush;
+        retiredSinceFlush = new ArrayList<Registry>();
+        for (Map.Entry<String, AtomicLong> entry : unknownCounters.entrySet()) {
+            long total = entry.getValue().getAndSet(0);
+            if (total != 0) {
+                sender.send(entry.getKey(), total);
+            }
+        }
+    }
+
+    private void sendTotals(Registry eventRegistry) {
+        for (int i = 0; i < eventRegistry.ids.length; i++) {
+            long total = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                total += eventRegistry.counters.getAndSet((i * STRIPES + stripe) * STRIDE, 0);
+            }
+            if (total != 0) {
+                sender.send(eventRegistry.ids[i], total);
+            }
+        }
+    }
+
+}
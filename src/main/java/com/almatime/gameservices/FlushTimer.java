@@ -0,0 +1,69 @@
+package com.almatime.gameservices;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a flush task once per flush window: the first {@link #schedule()} of a window schedules
+ * the task on the {@link BackgroundExecutor} thread when the window ends, later ones join it.
+ * Used for work collected elsewhere, i.e. in the offline journal.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class FlushTimer {
+
+    private final Runnable task;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile long flushIntervalMs;
+    // multiplier of the flush interval set by the adaptive flush scheduler
+    private volatile double intervalScale = 1;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    FlushTimer(Runnable task, long flushIntervalMs) {
+        this.task = task;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Stretches the flush interval, applied from the next window.
+     */
+    void setIntervalScale(double intervalScale) {
+        this.intervalScale = intervalScale;
+    }
+
+    long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    /**
+     * Schedules the flush at the end of the current window.
+     */
+    void schedule() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            BackgroundExecutor.get().schedule(flushTask, (long) (flushIntervalMs * intervalScale),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs the flush task now, the next {@link #schedule()} starts a new window.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        task.run();
+    }
+
+}
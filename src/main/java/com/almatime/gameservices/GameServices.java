@@ -4,9 +4,16 @@ import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 
+import com.almatime.gameservices.data.LeaderboardMetadata;
+import com.almatime.gameservices.data.LeaderboardScoresResult;
 import com.almatime.gameservices.data.LeaderboardUserScore;
+import com.almatime.gameservices.data.PlayerProfile;
 import com.almatime.utils.Log;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
@@ -20,17 +27,29 @@ import com.google.android.gms.games.EventsClient;
 import com.google.android.gms.games.Games;
 import com.google.android.gms.games.LeaderboardsClient;
 import com.google.android.gms.games.PlayersClient;
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.TurnBasedMultiplayerClient;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+import com.google.android.gms.games.leaderboard.Leaderboard;
 import com.google.android.gms.games.leaderboard.LeaderboardScore;
 import com.google.android.gms.games.leaderboard.LeaderboardVariant;
+import com.google.android.gms.games.leaderboard.ScoreSubmissionData;
+import com.google.android.gms.games.multiplayer.turnbased.TurnBasedMatch;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.File;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A <b>Singleton</b> class provides Google authentication, Google Play services API.
@@ -40,10 +59,12 @@ import java.util.Iterator;
  * 1) {@link #init(Activity, EnumSet)} call it from onCreate(..)
  * 2) {@link #signInSilently()} call it from onResume() or from onStart() method.
  * 3) {@link #onActivityResult(int, int, Intent)} call it from onActivityResult(..)
- * 4) {@link #destroy()} call it from destroy()
+ * 4) {@link #onPause()} call it from onPause()
+ * 5) {@link #destroy()} call it from destroy()
  *
- * Effectively stores achievements with statuses and leaderboards scores in preferences on
- * purpose of reducing api calls and handling connection losing.
+ * Effectively stores achievements with statuses and leaderboards scores in an offline journal on
+ * purpose of reducing api calls and handling connection losing. The journal is written on
+ * a background thread, so offline calls don't block the caller on disk I/O.
  *
  * When using <b>achievements</b> assign a required ids before calling {@link #init(Activity, EnumSet)}:
  * {@link #setUnlockAchievementIds(String[])}
@@ -52,10 +73,33 @@ import java.util.Iterator;
  * When using <b>leaderboards</b> assign an ids before calling {@link #init(Activity, EnumSet)}:
  * {@link #setLeaderboardIds(String[])}
  *
- * <i><b>Add to proguard-rules.pro the following:</b>
- * -keep class PACKAGE_OF_THIS_CLASS.** {
- *     public protected private *;
- * }</i>
+ * The id setters return int handles of the ids. Calls by handle, i.e.
+ * {@link #submitScoreToLeaderboard(int, long)}, don't allocate, so they suit the game loop.
+ *
+ * Scores submitted while connected are coalesced: only the best score of each leaderboard is sent
+ * once per {@link #setScoreFlushInterval(long)}, on {@link #onPause()} or on {@link #flushScores()}.
+ * Achievement unlocks and increments are written to the offline journal first and stay there
+ * until the server confirms them; increments are summed there and sent as one increment per
+ * achievement once per {@link #setIncrementFlushInterval(long)}. Achievement states are loaded
+ * once per session, so calls for already unlocked achievements don't reach the server.
+ *
+ * Unlocks, increments and scores may be issued from any thread, i.e. the render thread: they're
+ * queued without locks and applied in order on a single worker thread, started by
+ * {@link #init(Activity, EnumSet)}. Up to 1024 of them may be issued before.
+ *
+ * Listener callbacks run on the main thread, or on the executor set by
+ * {@link #setCallbackExecutor(Executor)}, i.e. {@link com.almatime.utils.FrameCallbackExecutor}
+ * to receive them on the game thread.
+ *
+ * Work issued while signing in (see {@link ConnectionState}) is queued and replayed in order
+ * as soon as the clients are ready, achievement work waits in the journal instead.
+ *
+ * When using <b>events</b> assign the ids before calling {@link #init(Activity, EnumSet)} with
+ * {@link #setEventIds(String[])}, then record them with {@link #recordEvent(String, int)}. Counts
+ * are written to the offline journal within a second, and sent once per
+ * {@link #setEventFlushInterval(long)} and on {@link #onPause()}.
+ *
+ * Google Clients are initialized without reflection, no proguard keep rules are required.
  *
  * @author Alexander Khrapunsky
  * @version 1.0.0, 30/10/2018.
@@ -71,6 +115,53 @@ public class GameServices {
     private final int RC_SIGN_IN = 9001;
     private final int RC_ACHIEVEMENT_UI = 9003;
     private final int RC_LEADERBOARD_UI = 9004;
+    private final int RC_MATCH_INBOX_UI = 9005;
+
+    // max time destroy() waits for the offline journal to reach the disk
+    private final long JOURNAL_FLUSH_TIMEOUT_MS = 200;
+
+    // max time onPause() blocks the main thread to get the buffered work sent or on disk
+    private final long PAUSE_FLUSH_BUDGET_MS = 50;
+
+    // default time scores are coalesced before sending the best one
+    private final long DEFAULT_SCORE_FLUSH_INTERVAL_MS = 5000;
+    // default time achievement increments are summed before sending
+    private final long DEFAULT_INCREMENT_FLUSH_INTERVAL_MS = 5000;
+
+    // default time events are aggregated before sending
+    private final long DEFAULT_EVENT_FLUSH_INTERVAL_MS = 30 * 1000;
+    // time event counts are aggregated in memory before they're written to the journal
+    private final long EVENT_PERSIST_INTERVAL_MS = 1000;
+
+    // default time a successful sign in is trusted without a new silent sign in
+    private final long DEFAULT_SILENT_SIGN_IN_INTERVAL_MS = 10 * 60 * 1000;
+
+    // max number of operations queued while connecting
+    private final int OPERATION_QUEUE_CAPACITY = 64;
+
+    // max number of operations waiting for the worker thread, power of 2
+    private final int OPERATION_RING_CAPACITY = 1024;
+
+    // default age of a cached player score served without a request
+    private final long DEFAULT_SCORE_CACHE_TTL_MS = 60 * 1000;
+    // default time after TTL a cached player score is served while being reloaded
+    private final long DEFAULT_SCORE_CACHE_STALE_MS = 5 * 60 * 1000;
+
+    // default age of the leaderboard metadata served without a reload
+    private final long DEFAULT_LEADERBOARD_METADATA_TTL_MS = 24 * 60 * 60 * 1000;
+
+    // default age of a cached player profile served without a reload
+    private final long DEFAULT_PLAYER_PROFILE_TTL_MS = 60 * 60 * 1000;
+
+    // default time saves of a snapshot are coalesced before the commit
+    private final long DEFAULT_SNAPSHOT_SAVE_INTERVAL_MS = 3000;
+
+    // default time between polls of turn based matches, pushed updates arrive meanwhile
+    private final long DEFAULT_MATCH_POLL_INTERVAL_MS = 60 * 1000;
+
+    // default budget of submissions per API family
+    private final int DEFAULT_API_BURST = 30;
+    private final int DEFAULT_API_CALLS_PER_MINUTE = 30;
 
     private static GameServices instance = new GameServices();
 
@@ -80,24 +171,218 @@ public class GameServices {
     // notify listeners
     private GameServicesListener gameServicesListener;
     private LeaderboardServicesListener leaderboardServicesListener;
+    // runs listener callbacks, null to call them on the thread of the result
+    private volatile Executor callbackExecutor;
 
     // Client used to sign in with Google APIs
     private GoogleSignInClient googleSignInClient;
 
-    // Client variables
-    private AchievementsClient achievementsClient;
-    private LeaderboardsClient leaderboardsClient;
-    private EventsClient eventsClient;
-    private PlayersClient playersClient;
+    // signed in account, read on every call instead of GoogleSignIn.getLastSignedInAccount(..)
+    private final SignInState signInState = new SignInState();
+
+    // silent sign in in flight, joined by the following calls
+    private Task<GoogleSignInAccount> silentSignInTask;
+    private long lastSignInSuccessMs;
+    private long silentSignInIntervalMs = DEFAULT_SILENT_SIGN_IN_INTERVAL_MS;
+    // id of the account the current clients were created for
+    private String clientsAccountId;
 
-    private EnumSet<SetClient> setClientsFlags;
+    // Client variables, volatile as buffered work is flushed from a background thread
+    private volatile AchievementsClient achievementsClient;
+    private volatile LeaderboardsClient leaderboardsClient;
+    private volatile EventsClient eventsClient;
+    private volatile PlayersClient playersClient;
+    private volatile SnapshotsClient snapshotsClient;
+    private volatile TurnBasedMultiplayerClient turnBasedMultiplayerClient;
+
+    // initializers of the chosen Google Clients, built once in init(..)
+    private EnumMap<SetClient, ClientInitializer> clientInitializers;
+    // last sign-in initialization time of each client in nanoseconds, guarded by itself
+    private final EnumMap<SetClient, Long> clientInitNanos =
+            new EnumMap<SetClient, Long>(SetClient.class);
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private String[] unlockAchievementIds;
     private String[] incrementAchievementIds;
     private String[] leaderboardIds;
+    private String[] eventIds;
 
     private Runnable taskOnSignInSuccess;
 
+    // pending offline achievements and scores, survives process death
+    private volatile OfflineJournal offlineJournal;
+
+    // daily, weekly and all time best scores of the player
+    private LocalBestScores localBestScores;
+
+    // names, icons and score orders of the leaderboards
+    private volatile LeaderboardMetadataCache leaderboardMetadataCache;
+
+    // profiles of the players signed in on the device
+    private PlayerProfileCache playerProfileCache;
+
+    private final GameServicesMetrics metrics = new GameServicesMetrics();
+
+    // work issued while connecting
+    private final OperationQueue operationQueue = new OperationQueue(OPERATION_QUEUE_CAPACITY,
+            metrics);
+
+    // unlocks, increments and scores from any thread, applied in order on the worker thread
+    private final OperationRingBuffer operationRing = new OperationRingBuffer(
+            OPERATION_RING_CAPACITY, new OperationRingBuffer.Consumer() {
+        @Override
+        public void consume(int op, String id, long value) {
+            switch (op) {
+                case OperationRingBuffer.OP_UNLOCK:
+                    applyUnlockAchievement(id);
+                    break;
+                case OperationRingBuffer.OP_INCREMENT:
+                    applyIncrementAchievement(id, (int) value);
+                    break;
+                case OperationRingBuffer.OP_SCORE:
+                    applySubmitScore(id, value);
+                    break;
+                case OperationRingBuffer.OP_FLUSH:
+                    flushBuffers();
+                    break;
+            }
+        }
+    });
+
+    // Intents of achievements and leaderboards screens of the signed in player
+    private final UiIntentCache uiIntentCache = new UiIntentCache();
+
+    // achievement states of the signed in player
+    private final AchievementIndex achievementIndex = new AchievementIndex();
+
+    // leaderboardId -> Leaderboard score order set by the game
+    private final ConcurrentHashMap<String, Integer> scoreOrders =
+            new ConcurrentHashMap<String, Integer>();
+
+    // best scores submitted while connected, waiting for the flush
+    private final CoalescingBuffer scoreBuffer = new CoalescingBuffer(
+            new CoalescingBuffer.Sender() {
+        @Override
+        public void send(String leaderboardId, long score) {
+            sendScore(leaderboardId, score, null);
+        }
+    }, DEFAULT_SCORE_FLUSH_INTERVAL_MS);
+
+    // sends the achievement increments summed in the journal once per window
+    private final FlushTimer incrementFlush = new FlushTimer(new Runnable() {
+        @Override
+        public void run() {
+            if (isSignedIn()) sendJournaled(OfflineJournal.OP_INCREMENT);
+        }
+    }, DEFAULT_INCREMENT_FLUSH_INTERVAL_MS);
+
+    // event counts waiting to be written to the journal
+    private final EventCounters eventCounters = new EventCounters(new EventCounters.Sender() {
+        @Override
+        public void send(String eventId, long count) {
+            OfflineJournal journal = offlineJournal;
+            if (journal == null) return; // recorded before init(..)
+            journal.append(OfflineJournal.OP_EVENT, eventId, count);
+            if ((eventsClient != null) && isSignedIn()) {
+                if (eventFlush.getFlushIntervalMs() > 0) {
+                    eventFlush.schedule();
+                } else {
+                    sendJournaled(OfflineJournal.OP_EVENT);
+                }
+            }
+        }
+    }, EVENT_PERSIST_INTERVAL_MS);
+
+    // sends the event counts summed in the journal once per window
+    private final FlushTimer eventFlush = new FlushTimer(new Runnable() {
+        @Override
+        public void run() {
+            if (isSignedIn()) sendJournaled(OfflineJournal.OP_EVENT);
+        }
+    }, DEFAULT_EVENT_FLUSH_INTERVAL_MS);
+
+    // saved games waiting for the commit
+    private final SnapshotStore snapshotStore = new SnapshotStore(new SnapshotStore.ClientSource() {
+        @Override
+        public SnapshotsClient get() {
+            return snapshotsClient;
+        }
+    }, metrics, DEFAULT_SNAPSHOT_SAVE_INTERVAL_MS);
+
+    // turn based match updates, delivered in batches
+    private final MatchUpdatePoller matchUpdatePoller = new MatchUpdatePoller(
+            new MatchUpdatePoller.DeliveryExecutor() {
+        @Override
+        public Executor get() {
+            Executor executor = callbackExecutor;
+            return (executor != null) ? executor : mainExecutor;
+        }
+    }, DEFAULT_MATCH_POLL_INTERVAL_MS);
+
+    private final Executor mainExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mainHandler.post(command);
+        }
+    };
+
+    // runs listener callbacks of objects handed out to the game, like deliver(..)
+    private final Executor listenerExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            deliver(command);
+        }
+    };
+
+    // budget of submissions per API family, work over it is stored offline
+    private final ApiRateLimiter rateLimiter = new ApiRateLimiter(DEFAULT_API_BURST,
+            DEFAULT_API_CALLS_PER_MINUTE);
+
+    // replays the journal with backoff after failed submissions, the work waits in the journal
+    private final RetryScheduler retryScheduler = new RetryScheduler(new Runnable() {
+        @Override
+        public void run() {
+            replayJournalIfConnected();
+        }
+    }, metrics);
+
+    // stretches the flush intervals while the server is slow or failing
+    private final AdaptiveFlushScheduler flushScheduler = new AdaptiveFlushScheduler(
+            new AdaptiveFlushScheduler.Listener() {
+        @Override
+        public void onFlushScaleChanged(double scale) {
+            scoreBuffer.setIntervalScale(scale);
+            incrementFlush.setIntervalScale(scale);
+            eventFlush.setIntervalScale(scale);
+            metrics.onFlushIntervalScaleChanged(scale);
+        }
+    });
+
+    // current player scores loaded from server
+    private final LeaderboardScoreCache scoreCache = new LeaderboardScoreCache(
+            new LeaderboardScoreCache.Loader() {
+        @Override
+        public Task<AnnotatedData<LeaderboardScore>> load(final String leaderboardId,
+                                                          final int timeSpan, int collection) {
+            LeaderboardsClient client = leaderboardsClient;
+            if (client == null) return null;
+            Task<AnnotatedData<LeaderboardScore>> task = client.loadCurrentPlayerLeaderboardScore(
+                    leaderboardId, timeSpan, collection);
+            task.addOnSuccessListener(new OnSuccessListener<AnnotatedData<LeaderboardScore>>() {
+                @Override
+                public void onSuccess(AnnotatedData<LeaderboardScore> scoreData) {
+                    LeaderboardScore score = scoreData.get();
+                    if ((score != null) && (localBestScores != null)) {
+                        localBestScores.seed(leaderboardId, timeSpan, score.getRawScore(),
+                                scoreOrderOf(leaderboardId), System.currentTimeMillis());
+                    }
+                }
+            });
+            return task;
+        }
+    }, DEFAULT_SCORE_CACHE_TTL_MS, DEFAULT_SCORE_CACHE_STALE_MS);
+
     /**
      * Flags to determine which Google Clients to include in initialization.
      */
@@ -106,7 +391,8 @@ public class GameServices {
         EVENTS,
         LEADERBOARD,
         MULTIPLAYER, // turn based
-        PLAYERS;
+        PLAYERS,
+        SNAPSHOTS; // saved games
 
         @Override
         public String toString() {
@@ -114,6 +400,17 @@ public class GameServices {
         }
     }
 
+    /**
+     * States of the connection to Google Play Games.
+     */
+    public enum ConnectionState {
+        DISCONNECTED,
+        // signing in or initializing the clients, work is queued
+        CONNECTING,
+        CONNECTED,
+        SIGNING_OUT
+    }
+
     /**
      * The notified gameServicesListener must be implemented in your Activity!
      */
@@ -141,6 +438,52 @@ public class GameServices {
         void onLeaderboardScoreResultCurrPlayer(String leaderboardId, LeaderboardUserScore userScore);
     }
 
+    /**
+     * Receives current player scores of all leaderboards in one callback, see
+     * {@link #loadAllCurrentPlayerLeaderboardScores(int, int, LeaderboardScoresListener)}.
+     */
+    public interface LeaderboardScoresListener {
+
+        void onLeaderboardScoresResult(LeaderboardScoresResult result);
+    }
+
+    /**
+     * Receives saved games loaded by {@link #loadSnapshot(String, SnapshotListener)}.
+     */
+    public interface SnapshotListener {
+
+        void onSnapshotLoaded(String name, byte[] data);
+        void onSnapshotLoadFailed(String name, Exception e);
+    }
+
+    /**
+     * Receives turn based match updates, see {@link #setMatchUpdateListener(MatchUpdateListener)}.
+     */
+    public interface MatchUpdateListener {
+
+        /**
+         * @param updatedMatches frozen matches, the latest version of each.
+         * @param removedMatchIds matches removed from the player's list.
+         */
+        void onMatchesUpdated(List<TurnBasedMatch> updatedMatches, List<String> removedMatchIds);
+    }
+
+    /**
+     * Creates a Google Client on sign-in. {@link #create(GoogleSignInAccount)} is called on the
+     * main thread, then {@link #sync()} is called on a background thread concurrently with
+     * the other clients.
+     */
+    private static abstract class ClientInitializer {
+
+        abstract void create(GoogleSignInAccount googleSignInAccount);
+
+        /**
+         * Sends to server the work stored since last connection.
+         */
+        void sync() {
+        }
+    }
+
     public static GameServices GetInstance() {
         return instance;
     }
@@ -166,34 +509,283 @@ public class GameServices {
         } catch (NullPointerException e) {
             Log.e(e);
         }
-        setClientsFlags = setClients;
+        clientInitializers = buildClientInitializers(setClients);
+        signInState.refresh(appContext);
+        // clients are bound to the activity, a new activity needs new clients
+        clientsAccountId = null;
+        silentSignInTask = null;
+        if (offlineJournal == null) {
+            journalOf(appContext);
+            migrateLegacyPreferences();
+        }
+        if (localBestScores == null) {
+            localBestScores = new LocalBestScores(new File(appContext.getFilesDir(),
+                    LocalBestScores.FILE_NAME));
+        }
+        if (leaderboardMetadataCache == null) {
+            leaderboardMetadataCache = new LeaderboardMetadataCache(new File(
+                    appContext.getFilesDir(), LeaderboardMetadataCache.FILE_NAME),
+                    DEFAULT_LEADERBOARD_METADATA_TTL_MS);
+        }
+        if (playerProfileCache == null) {
+            playerProfileCache = new PlayerProfileCache(new File(appContext.getFilesDir(),
+                    PlayerProfileCache.FILE_NAME), DEFAULT_PLAYER_PROFILE_TTL_MS);
+        }
+        scoreBuffer.register(leaderboardIds);
+        eventCounters.register(eventIds);
+        operationRing.start();
+    }
+
+    /**
+     * @return the offline journal, read from disk on the first call. {@link JournalFlushJob}
+     * may need it before {@link #init(Activity, EnumSet)}.
+     */
+    synchronized OfflineJournal journalOf(Context context) {
+        if (offlineJournal == null) {
+            offlineJournal = new OfflineJournal(new File(context.getFilesDir(),
+                    OfflineJournal.FILE_NAME));
+        }
+        return offlineJournal;
+    }
+
+    /**
+     * Moves pending achievements and scores stored in preferences by previous versions into
+     * the offline journal.
+     */
+    private void migrateLegacyPreferences() {
+        SharedPreferences preferences = activity.getPreferences(Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = preferences.edit();
+        boolean migrated = false;
+        if (unlockAchievementIds != null) {
+            for (String id : unlockAchievementIds) {
+                if (preferences.contains("unlocked" + id)) {
+                    if (preferences.getBoolean("unlocked" + id, false)) {
+                        offlineJournal.append(OfflineJournal.OP_UNLOCK, id, 1);
+                    }
+                    editor.remove("unlocked" + id);
+                    migrated = true;
+                }
+            }
+        }
+        if (incrementAchievementIds != null) {
+            for (String id : incrementAchievementIds) {
+                if (preferences.contains("incremented" + id)) {
+                    int num = preferences.getInt("incremented" + id, 0);
+                    if (num > 0) {
+                        offlineJournal.append(OfflineJournal.OP_INCREMENT, id, num);
+                    }
+                    editor.remove("incremented" + id);
+                    migrated = true;
+                }
+            }
+        }
+        if (leaderboardIds != null) {
+            for (String id : leaderboardIds) {
+                if (preferences.contains("score_" + id)) {
+                    long score = preferences.getLong("score_" + id, -1);
+                    if (score != -1) {
+                        offlineJournal.appendScore(id, score, scoreOrderOf(id),
+                                LocalBestScores.IMPROVED_ALL_TIME, System.currentTimeMillis());
+                    }
+                    editor.remove("score_" + id);
+                    migrated = true;
+                }
+            }
+        }
+        if (migrated) editor.apply();
+    }
+
+    private EnumMap<SetClient, ClientInitializer> buildClientInitializers(
+            EnumSet<SetClient> setClients) {
+        EnumMap<SetClient, ClientInitializer> initializers =
+                new EnumMap<SetClient, ClientInitializer>(SetClient.class);
+        for (SetClient setClient : setClients) {
+            switch (setClient) {
+                case ACHIEVEMENTS:
+                    initializers.put(setClient, new ClientInitializer() {
+                        @Override
+                        void create(GoogleSignInAccount googleSignInAccount) {
+                            setAchievementsClient(googleSignInAccount);
+                        }
+
+                        @Override
+                        void sync() {
+                            handleAchievementsSinceLastConnection();
+                            loadAchievementIndex();
+                        }
+                    });
+                    break;
+                case EVENTS:
+                    initializers.put(setClient, new ClientInitializer() {
+                        @Override
+                        void create(GoogleSignInAccount googleSignInAccount) {
+                            setEventsClient(googleSignInAccount);
+                        }
+
+                        @Override
+                        void sync() {
+                            handleEventsSinceLastConnection();
+                        }
+                    });
+                    break;
+                case LEADERBOARD:
+                    initializers.put(setClient, new ClientInitializer() {
+                        @Override
+                        void create(GoogleSignInAccount googleSignInAccount) {
+                            setLeaderboardClient(googleSignInAccount);
+                        }
+
+                        @Override
+                        void sync() {
+                            handleLeaderboardScoresSinceLastConnection();
+                            leaderboardMetadataCache.refreshIfStale(leaderboardsClient);
+                        }
+                    });
+                    break;
+                case MULTIPLAYER:
+                    initializers.put(setClient, new ClientInitializer() {
+                        @Override
+                        void create(GoogleSignInAccount googleSignInAccount) {
+                            setMultiplayerClient(googleSignInAccount);
+                        }
+                    });
+                    break;
+                case PLAYERS:
+                    initializers.put(setClient, new ClientInitializer() {
+                        @Override
+                        void create(GoogleSignInAccount googleSignInAccount) {
+                            setPlayersClient(googleSignInAccount);
+                        }
+
+                        @Override
+                        void sync() {
+                            refreshPlayerProfile();
+                        }
+                    });
+                    break;
+                case SNAPSHOTS:
+                    initializers.put(setClient, new ClientInitializer() {
+                        @Override
+                        void create(GoogleSignInAccount googleSignInAccount) {
+                            setSnapshotsClient(googleSignInAccount);
+                        }
+
+                        @Override
+                        void sync() {
+                            // saves made while signed out
+                            snapshotStore.flush();
+                        }
+                    });
+                    break;
+            }
+        }
+        return initializers;
     }
 
     /**
-     * TODO finish all future clients
+     * Creates the chosen Google Clients on the main thread, then syncs them with server
+     * concurrently. A failure of one client is reported to the listener and doesn't stop others.
+     *
+     * @param onReady posted to the main thread when all clients are initialized.
      */
-    private void initGoogleClients(GoogleSignInAccount googleSignInAccount) {
-        Iterator<SetClient> iterator = setClientsFlags.iterator();
-        while (iterator.hasNext()) {
-            SetClient setClient = iterator.next();
-            String strMethodName = "set" + setClient.toString() + "Client";
+    private void initGoogleClients(GoogleSignInAccount googleSignInAccount, final Runnable onReady) {
+        if (clientInitializers.isEmpty()) {
+            onReady.run();
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(clientInitializers.size());
+        for (final Map.Entry<SetClient, ClientInitializer> entry : clientInitializers.entrySet()) {
+            final long startNanos = System.nanoTime();
+            boolean created;
             try {
-                Method method = getClass().getDeclaredMethod(strMethodName,
-                        new Class[] { GoogleSignInAccount.class });
-                method.invoke(instance, googleSignInAccount);
-            } catch (NoSuchMethodException e) {
-                Log.e(e);
-            } catch (IllegalAccessException e) {
-                Log.e(e);
-            } catch (InvocationTargetException e) {
-                Log.e(e);
+                entry.getValue().create(googleSignInAccount);
+                created = true;
+            } catch (RuntimeException e) {
+                onClientInitFailed(entry.getKey(), e);
+                created = false;
+            }
+            final long createNanos = System.nanoTime() - startNanos;
+            final boolean sync = created;
+            BackgroundExecutor.parallel().execute(new Runnable() {
+                @Override
+                public void run() {
+                    long syncStartNanos = System.nanoTime();
+                    if (sync) {
+                        try {
+                            entry.getValue().sync();
+                        } catch (RuntimeException e) {
+                            onClientInitFailed(entry.getKey(), e);
+                        }
+                    }
+                    long initNanos = createNanos + (System.nanoTime() - syncStartNanos);
+                    synchronized (clientInitNanos) {
+                        clientInitNanos.put(entry.getKey(), initNanos);
+                    }
+                    if (Log.DEBUG) {
+                        Log.i(TAG, entry.getKey() + " client initialized in "
+                                + TimeUnit.NANOSECONDS.toMillis(initNanos) + " ms");
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        mainHandler.post(onReady);
+                    }
+                }
+            });
+        }
+    }
+
+    private void onClientInitFailed(SetClient setClient, final Exception e) {
+        Log.e(TAG, "Failed to initialize " + setClient + " client");
+        Log.e(TAG, e);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (appContext != null) {
+                    notifyException(e, appContext.getString(R.string.error_client_init));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return initialization time in milliseconds of each client at the last sign-in.
+     */
+    public Map<SetClient, Long> getClientInitTimingsMs() {
+        EnumMap<SetClient, Long> timings = new EnumMap<SetClient, Long>(SetClient.class);
+        synchronized (clientInitNanos) {
+            for (Map.Entry<SetClient, Long> entry : clientInitNanos.entrySet()) {
+                timings.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
             }
         }
+        return timings;
     }
 
     private void setAchievementsClient(GoogleSignInAccount googleSignInAccount) {
         achievementsClient = Games.getAchievementsClient(activity, googleSignInAccount);
-        handleAchievementsSinceLastConnection();
+    }
+
+    /**
+     * Loads states of all achievements into memory once per session. Loaded from server, as
+     * journaled increments are set on top of the loaded steps: cached steps may miss progress
+     * made on another device.
+     */
+    private void loadAchievementIndex() {
+        AchievementsClient client = achievementsClient;
+        if ((client == null) || achievementIndex.isLoaded()) return;
+        client.load(true).addOnSuccessListener(
+                new OnSuccessListener<AnnotatedData<AchievementBuffer>>() {
+            @Override
+            public void onSuccess(AnnotatedData<AchievementBuffer> achievementsData) {
+                AchievementBuffer buffer = achievementsData.get();
+                if (buffer == null) return;
+                try {
+                    achievementIndex.load(buffer);
+                } finally {
+                    buffer.release();
+                }
+                // increments wait for the steps known on server
+                if (isSignedIn()) sendJournaled(OfflineJournal.OP_INCREMENT);
+            }
+        });
     }
 
     private void setEventsClient(GoogleSignInAccount googleSignInAccount) {
@@ -202,20 +794,147 @@ public class GameServices {
 
     private void setLeaderboardClient(GoogleSignInAccount googleSignInAccount) {
         leaderboardsClient = Games.getLeaderboardsClient(activity, googleSignInAccount);
-        handleLeaderboardScoresSinceLastConnection();
     }
 
     private void setPlayersClient(GoogleSignInAccount googleSignInAccount) {
         playersClient = Games.getPlayersClient(activity, googleSignInAccount);
     }
 
+    private void setSnapshotsClient(GoogleSignInAccount googleSignInAccount) {
+        snapshotsClient = Games.getSnapshotsClient(activity, googleSignInAccount);
+    }
+
+    private void refreshPlayerProfile() {
+        GoogleSignInAccount account = signInState.getAccount();
+        if ((account == null) || (playerProfileCache == null)) return;
+        playerProfileCache.refreshIfStale(account.getId(), playersClient);
+    }
+
+    /**
+     * Answers from memory, without a request: the profile is loaded after connect and stored on
+     * disk, so the profile of the last signed in player is available on later launches before
+     * sign in. A profile older than {@link #setPlayerProfileTtl(long)} is reloaded in background.
+     * Requires {@link SetClient#PLAYERS}.
+     *
+     * @return profile of the signed in player or null if it was never loaded.
+     */
+    public PlayerProfile getCurrentPlayerProfile() {
+        GoogleSignInAccount account = signInState.getAccount();
+        if ((account == null) || (playerProfileCache == null)) return null;
+        playerProfileCache.refreshIfStale(account.getId(), playersClient);
+        return playerProfileCache.get(account.getId());
+    }
+
+    /**
+     * Sets the age of the cached player profile after which it's reloaded in background.
+     * 1 hour by default.
+     */
+    public void setPlayerProfileTtl(long ttlMs) {
+        if (playerProfileCache != null) {
+            playerProfileCache.setTtl(ttlMs);
+        }
+    }
+
     private void setMultiplayerClient(GoogleSignInAccount googleSignInAccount) {
+        turnBasedMultiplayerClient = Games.getTurnBasedMultiplayerClient(activity,
+                googleSignInAccount);
     }
 
     public void setLeaderboardServicesListener(LeaderboardServicesListener boardServicesListener) {
         this.leaderboardServicesListener = boardServicesListener;
     }
 
+    /**
+     * Sets the executor which runs listener callbacks, except showErrorDialog(..) which needs
+     * the main thread. Null, by default, calls them on the main thread.
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    private void deliver(Runnable callback) {
+        Executor executor = callbackExecutor;
+        if (executor != null) {
+            executor.execute(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    /**
+     * Delivers a callback of a background result like the results of Google Clients, which
+     * arrive on the main thread.
+     */
+    private void deliverOnMainOrExecutor(final Runnable callback) {
+        if (callbackExecutor != null) {
+            deliver(callback);
+        } else {
+            mainHandler.post(callback);
+        }
+    }
+
+    private void notifyException(final Exception e, final String msgForUser) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                if (gameServicesListener != null) {
+                    gameServicesListener.handleException(e, msgForUser);
+                }
+            }
+        });
+    }
+
+    private void notifySignInFailed(final boolean wasTrySilently) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                if (gameServicesListener != null) {
+                    gameServicesListener.onSignInFailed(wasTrySilently);
+                }
+            }
+        });
+    }
+
+    private final Runnable notifySignInCanceled = new Runnable() {
+        @Override
+        public void run() {
+            if (gameServicesListener != null) {
+                gameServicesListener.onSignInCanceled();
+            }
+        }
+    };
+
+    private final Runnable notifySignOutCompleted = new Runnable() {
+        @Override
+        public void run() {
+            if (gameServicesListener != null) {
+                gameServicesListener.onSignOutCompleted();
+            }
+        }
+    };
+
+    private final Runnable notifySignInSucceeded = new Runnable() {
+        @Override
+        public void run() {
+            if (gameServicesListener == null) return; // destroyed in meantime
+            gameServicesListener.onSignInSucceded();
+            runTaskOnSuccessSignIn();
+        }
+    };
+
+    private void notifyLeaderboardScore(final String leaderboardId,
+                                        final LeaderboardUserScore userScore) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                if (leaderboardServicesListener != null) {
+                    leaderboardServicesListener.onLeaderboardScoreResultCurrPlayer(leaderboardId,
+                            userScore);
+                }
+            }
+        });
+    }
+
     public void setTaskOnSignInSuccess(Runnable taskOnSignInSuccess) {
         this.taskOnSignInSuccess = taskOnSignInSuccess;
     }
@@ -237,26 +956,61 @@ public class GameServices {
     }
 
     /**
-     * Sign in without displaying UI.
+     * Sign in without displaying UI. Safe to call on every onResume(): the call is skipped while
+     * a silent sign in is in flight, or while the last successful sign in is younger than
+     * {@link #setSilentSignInInterval(long)} and its account is not expired.
      */
     public void signInSilently() {
         if (googleSignInClient == null) return;
-        googleSignInClient.silentSignIn().addOnCompleteListener(activity,
+        if (silentSignInTask != null) {
+            metrics.onSilentSignInAvoided();
+            return;
+        }
+        GoogleSignInAccount account = signInState.getAccount();
+        if ((signInState.getConnectionState() == ConnectionState.CONNECTED) && (account != null)
+                && !account.isExpired()
+                && (SystemClock.elapsedRealtime() - lastSignInSuccessMs < silentSignInIntervalMs)) {
+            metrics.onSilentSignInAvoided();
+            mainHandler.post(onClientsReady);
+            return;
+        }
+        onConnecting();
+        metrics.onSilentSignInStarted();
+        final Task<GoogleSignInAccount> signInTask = googleSignInClient.silentSignIn();
+        silentSignInTask = signInTask;
+        // not bound to the activity, which drops its listeners in onStop(), so the state never
+        // stays CONNECTING with the task in flight
+        signInTask.addOnCompleteListener(mainExecutor,
                 new OnCompleteListener<GoogleSignInAccount>() {
             @Override
             public void onComplete(@NonNull Task<GoogleSignInAccount> task) {
+                if (silentSignInTask == signInTask) silentSignInTask = null;
                 if (task.isSuccessful()) {
                     Log.i(TAG, "onComplete success");
                     onConnected(task.getResult());
-                    gameServicesListener.onSignInSucceded();
-                    runTaskOnSuccessSignIn();
                 } else {
                     Log.w(TAG, "onComplete failed exception = " + task.getException());
                     onDisconnected();
-                    gameServicesListener.onSignInFailed(true);
                 }
             }
         });
+        // runs after the listener above, only while the activity is started
+        signInTask.addOnCompleteListener(activity, new OnCompleteListener<GoogleSignInAccount>() {
+            @Override
+            public void onComplete(@NonNull Task<GoogleSignInAccount> task) {
+                if (!task.isSuccessful()) {
+                    notifySignInFailed(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets how long a successful sign in is trusted, so {@link #signInSilently()} doesn't send
+     * a new request. 0 signs in on every call. 10 minutes by default.
+     */
+    public void setSilentSignInInterval(long intervalMs) {
+        silentSignInIntervalMs = intervalMs;
     }
 
     /**
@@ -264,228 +1018,1164 @@ public class GameServices {
      */
     public void signInInteractively() {
         if (googleSignInClient == null) return;
+        onConnecting();
         activity.startActivityForResult(googleSignInClient.getSignInIntent(), RC_SIGN_IN);
     }
 
+    /**
+     * Answers from the state cached on sign in and sign out, cheap enough for the game loop.
+     */
     public boolean isSignedIn() {
-        return GoogleSignIn.getLastSignedInAccount(appContext) != null;
+        return signInState.isSignedIn();
+    }
+
+    /**
+     * Re-reads the signed in account from Google Sign-In. Call it if the account could be changed
+     * outside of this class, i.e. by another Google Sign-In client of the app.
+     */
+    public void invalidateSignInState() {
+        if (appContext == null) return;
+        signInState.refresh(appContext);
+    }
+
+    public ConnectionState getConnectionState() {
+        return signInState.getConnectionState();
     }
 
     public void signOut() {
         if (!isSignedIn() || (googleSignInClient == null)) return;
 
+        final ConnectionState previousState = signInState.getConnectionState();
+        signInState.setConnectionState(ConnectionState.SIGNING_OUT);
         googleSignInClient.signOut().addOnCompleteListener(activity, new OnCompleteListener<Void>() {
             @Override
             public void onComplete(@NonNull Task<Void> task) {
                 if (task.isSuccessful()) {
-                    gameServicesListener.onSignOutCompleted();
+                    deliver(notifySignOutCompleted);
                     onDisconnected();
+                } else {
+                    signInState.setConnectionState(previousState);
                 }
             }
         });
     }
 
     /**
-     * Called when user successfully signed in. Initializes a chosen Google Clients.
+     * Called when sign in starts. Connected clients stay usable while the sign in is refreshed.
      */
-    private void onConnected(GoogleSignInAccount googleSignInAccount) {
-        initGoogleClients(googleSignInAccount);
+    private void onConnecting() {
+        if (signInState.getConnectionState() == ConnectionState.DISCONNECTED) {
+            signInState.setConnectionState(ConnectionState.CONNECTING);
+        }
     }
 
-    private void onDisconnected() {
-        achievementsClient = null;
-        eventsClient = null;
-        leaderboardsClient = null;
-        playersClient = null;
+    /**
+     * Queues the operation if the clients are not ready yet.
+     *
+     * @return true if the operation was queued and will be replayed after connecting.
+     */
+    private boolean enqueueWhileConnecting(Runnable operation) {
+        if (operationQueue.offer(operation)) return true;
+        Log.w(TAG, "Operation queue is full, running the operation without connection");
+        return false;
     }
 
-    public void setUnlockAchievementIds(String[] unlockAchievementIds) {
-        this.unlockAchievementIds = unlockAchievementIds;
+    /**
+     * Called when user successfully signed in. Initializes a chosen Google Clients, and notifies
+     * the listener when they are ready.
+     */
+    private void onConnected(GoogleSignInAccount googleSignInAccount) {
+        signInState.onSignedIn(googleSignInAccount);
+        lastSignInSuccessMs = SystemClock.elapsedRealtime();
+        String accountId = googleSignInAccount.getId();
+        localBestScores.bindAccount(accountId);
+        if ((accountId != null) && accountId.equals(clientsAccountId)) {
+            // same account, clients of the previous sign in are still valid
+            metrics.onClientInitAvoided();
+            onClientsReady.run();
+            return;
+        }
+        clientsAccountId = accountId;
+        uiIntentCache.clear();
+        initGoogleClients(googleSignInAccount, onClientsReady);
     }
 
-    public void setIncrementAchievementIds(String[] incrementAchievementIds) {
-        this.incrementAchievementIds = incrementAchievementIds;
-    }
+    private final Runnable onClientsReady = new Runnable() {
+        @Override
+        public void run() {
+            if (!signInState.isSignedIn()) return; // signed out in meantime
+            signInState.setConnectionState(ConnectionState.CONNECTED);
+            operationQueue.replay();
+            // journal work of the reconnect, the clients of a new sign in sync it as well
+            replayJournalIfConnected();
+            prefetchUiIntents();
+            if (turnBasedMultiplayerClient != null) {
+                matchUpdatePoller.start(turnBasedMultiplayerClient);
+            }
+            deliver(notifySignInSucceeded);
+        }
+    };
+
+    /**
+     * Called when signed out or the sign in failed. Queued work takes its offline path.
+     */
+    private void onDisconnected() {
+        signInState.onSignedOut();
+        clientsAccountId = null;
+        achievementsClient = null;
+        eventsClient = null;
+        leaderboardsClient = null;
+        playersClient = null;
+        snapshotsClient = null;
+        snapshotStore.clearCommitted();
+        turnBasedMultiplayerClient = null;
+        matchUpdatePoller.stop();
+        matchUpdatePoller.clear();
+        // without client buffered work goes to the offline journal
+        flushBuffers();
+        scoreCache.clear();
+        uiIntentCache.clear();
+        achievementIndex.clear();
+        retryScheduler.clear();
+        operationQueue.replay();
+    }
+
+    /**
+     * @return handles of the ids in the same order, for {@link #unlockAchievement(int)}.
+     */
+    public int[] setUnlockAchievementIds(String[] unlockAchievementIds) {
+        this.unlockAchievementIds = copyOf(unlockAchievementIds);
+        return handlesOf(this.unlockAchievementIds);
+    }
+
+    /**
+     * @return handles of the ids in the same order, for {@link #incrementAchievement(int, int)}.
+     */
+    public int[] setIncrementAchievementIds(String[] incrementAchievementIds) {
+        this.incrementAchievementIds = copyOf(incrementAchievementIds);
+        return handlesOf(this.incrementAchievementIds);
+    }
+
+    private static String[] copyOf(String[] ids) {
+        return (ids != null) ? ids.clone() : null;
+    }
+
+    /**
+     * Handle of an id is its index in the id table, so a call by handle is an array read.
+     */
+    private static int[] handlesOf(String[] ids) {
+        int[] handles = new int[(ids != null) ? ids.length : 0];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = i;
+        }
+        return handles;
+    }
+
+    private static String idOf(String[] ids, int handle) {
+        if ((ids == null) || (handle < 0) || (handle >= ids.length)) {
+            throw new IllegalArgumentException("Unknown handle: " + handle);
+        }
+        return ids[handle];
+    }
 
     public void showAchievements() {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                showAchievements();
+            }
+        })) return;
         Log.i("achievementsClient = " + achievementsClient);
         if (achievementsClient == null) return;
-        achievementsClient.getAchievementsIntent()
+        final long tapMs = SystemClock.elapsedRealtime();
+        Intent cachedIntent = uiIntentCache.get(UiIntentCache.KEY_ACHIEVEMENTS);
+        if (cachedIntent != null) {
+            startUi(cachedIntent, RC_ACHIEVEMENT_UI, tapMs, true);
+            return;
+        }
+        uiIntentCache.cache(UiIntentCache.KEY_ACHIEVEMENTS,
+                achievementsClient.getAchievementsIntent())
                 .addOnSuccessListener(new OnSuccessListener<Intent>() {
                     @Override
                     public void onSuccess(Intent intent) {
                         Log.i("onSuccess before starting activityForResult");
-                        activity.startActivityForResult(intent, RC_ACHIEVEMENT_UI);
+                        startUi(intent, RC_ACHIEVEMENT_UI, tapMs, false);
                     }
                 })
                 .addOnFailureListener(new OnFailureListener() {
                     @Override
                     public void onFailure(@NonNull Exception e) {
-                        gameServicesListener.handleException(e, appContext.getString(R.string.error_achievements));
+                        notifyException(e, appContext.getString(R.string.error_achievements));
                     }
                 });
     }
 
+    /**
+     * Safe to call from any thread, the increment is applied on the worker thread.
+     */
     public void incrementAchievement(String achievementId, int incNum) {
+        operationRing.offer(OperationRingBuffer.OP_INCREMENT, achievementId, incNum);
+    }
+
+    /**
+     * Same as {@link #incrementAchievement(String, int)}, allocates nothing.
+     *
+     * @param achievementHandle returned by {@link #setIncrementAchievementIds(String[])}.
+     */
+    public void incrementAchievement(int achievementHandle, int incNum) {
+        incrementAchievement(idOf(incrementAchievementIds, achievementHandle), incNum);
+    }
+
+    private void applyIncrementAchievement(String achievementId, int incNum) {
+        metrics.onIncrementReceived();
+        if (achievementIndex.isUnlocked(achievementId)) return;
+        achievementIndex.addSteps(achievementId, incNum);
+        // summed in the journal, on disk until server confirms it
+        offlineJournal.append(OfflineJournal.OP_INCREMENT, achievementId, incNum);
         if ((achievementsClient != null) && isSignedIn()) {
-            achievementsClient.increment(achievementId, incNum);
-        } else {
-            setAchievementIncrementSinceLastConnection(achievementId, incNum);
+            if (incrementFlush.getFlushIntervalMs() > 0) {
+                incrementFlush.schedule();
+            } else {
+                sendJournaled(OfflineJournal.OP_INCREMENT);
+            }
         }
+        // otherwise sent on the next sign in
     }
 
+    /**
+     * Turns the summed increment claimed from the journal into the steps to set on top of the
+     * steps known on server. Released back to the journal until the achievement index is
+     * loaded.
+     */
+    private void incrementToSteps(String achievementId, long incNum) {
+        if (!achievementIndex.isLoaded()) {
+            // sent once the index is loaded
+            offlineJournal.release(OfflineJournal.OP_INCREMENT, achievementId, incNum);
+            return;
+        }
+        int serverSteps = achievementIndex.getServerSteps(achievementId);
+        if ((serverSteps < 0) || achievementIndex.isUnlocked(achievementId)) {
+            Log.w("Increment of " + achievementId + " abandoned: unlocked or not incremental");
+            offlineJournal.complete(OfflineJournal.OP_INCREMENT, achievementId, incNum);
+            return;
+        }
+        offlineJournal.incrementToSteps(achievementId, incNum, serverSteps);
+    }
+
+    /**
+     * Sets the steps claimed from the journal on server, or releases them back to the journal
+     * if the client is gone. Setting steps is safe to repeat, unlike incrementing them.
+     */
+    private void sendSteps(String achievementId, long steps) {
+        AchievementsClient client = achievementsClient;
+        if ((client == null) || !rateLimiter.tryAcquire(SetClient.ACHIEVEMENTS)) {
+            deferSend(SetClient.ACHIEVEMENTS, OfflineJournal.OP_STEPS, achievementId, steps,
+                    Collections.singletonList(achievementId), client != null);
+            return;
+        }
+        observeSubmission(client.setStepsImmediate(achievementId,
+                (int) Math.min(steps, Integer.MAX_VALUE)), OfflineJournal.OP_STEPS, achievementId,
+                steps, Collections.singletonList(achievementId));
+        metrics.onIncrementSent();
+    }
+
+    /**
+     * Sets how long achievement increments are summed before one increment per achievement is
+     * sent. 0 sends every increment immediately. 5 seconds by default.
+     */
+    public void setIncrementFlushInterval(long flushIntervalMs) {
+        incrementFlush.setFlushIntervalMs(flushIntervalMs);
+    }
+
+    /**
+     * Unlocks the achievement, does nothing if it's already unlocked. Safe to call from any
+     * thread, the unlock is applied on the worker thread.
+     */
     public void unlockAchievement(String achievementId) {
+        if (achievementIndex.isUnlocked(achievementId)) return;
+        operationRing.offer(OperationRingBuffer.OP_UNLOCK, achievementId, 0);
+    }
+
+    /**
+     * Same as {@link #unlockAchievement(String)}, allocates nothing.
+     *
+     * @param achievementHandle returned by {@link #setUnlockAchievementIds(String[])}.
+     */
+    public void unlockAchievement(int achievementHandle) {
+        unlockAchievement(idOf(unlockAchievementIds, achievementHandle));
+    }
+
+    private void applyUnlockAchievement(String achievementId) {
+        if (achievementIndex.isUnlocked(achievementId)) return;
+        // on disk until server confirms it
+        offlineJournal.append(OfflineJournal.OP_UNLOCK, achievementId, 1);
         if ((achievementsClient != null) && isSignedIn()) {
-            achievementsClient.unlock(achievementId);
-        } else {
-            setAchievementUnlocked(achievementId, true);
+            sendJournaled(OfflineJournal.OP_UNLOCK);
         }
+        // otherwise sent on the next sign in
     }
 
-    private void setAchievementUnlocked(String achievementID, boolean unlocked) {
-        activity.getPreferences(Context.MODE_PRIVATE).edit().putBoolean("unlocked"
-                + achievementID, unlocked).commit();
+    /**
+     * Unlocks the achievement claimed from the journal on server, or releases the unlock back to
+     * the journal if the client is gone or the achievements budget is spent.
+     */
+    private void sendUnlock(String achievementId) {
+        if (achievementIndex.isUnlocked(achievementId)) {
+            // unlocked on server according to the states loaded at sign in
+            offlineJournal.complete(OfflineJournal.OP_UNLOCK, achievementId, 1);
+            return;
+        }
+        AchievementsClient client = achievementsClient;
+        if ((client == null) || !rateLimiter.tryAcquire(SetClient.ACHIEVEMENTS)) {
+            deferSend(SetClient.ACHIEVEMENTS, OfflineJournal.OP_UNLOCK, achievementId, 1,
+                    Collections.singletonList(achievementId), client != null);
+            return;
+        }
+        observeSubmission(client.unlockImmediate(achievementId), OfflineJournal.OP_UNLOCK,
+                achievementId, 1, Collections.singletonList(achievementId));
+        achievementIndex.markUnlocked(achievementId);
     }
 
+    /**
+     * Answers from memory, without a request.
+     *
+     * @return true if the achievement is unlocked on server according to the states loaded at
+     * sign in, or was unlocked locally in this session or offline.
+     */
     public boolean getAchievementUnlocked(String achievementID) {
-        return activity.getPreferences(Context.MODE_PRIVATE).getBoolean("unlocked"
-                + achievementID, false);
+        return achievementIndex.isUnlocked(achievementID)
+                || offlineJournal.contains(OfflineJournal.OP_UNLOCK, achievementID);
     }
 
+    /**
+     * Submits achievements statuses and steps stored in the journal to server. Claimed work
+     * stays in the journal until server confirms it, so it isn't claimed twice and isn't lost.
+     */
+    private void handleAchievementsSinceLastConnection() {
+        sendJournaled(OfflineJournal.OP_UNLOCK);
+        sendJournaled(OfflineJournal.OP_INCREMENT);
+    }
 
-    private void setAchievementIncrementSinceLastConnection(String achievementID, int num) {
-        activity.getPreferences(Context.MODE_PRIVATE).edit().putInt("incremented"
-                + achievementID, num).commit();
+    public void setEventIds(String[] eventIds) {
+        this.eventIds = eventIds;
     }
 
-    private int getAchievementIncrementSinceLastConnection(String achievementID) {
-        return activity.getPreferences(Context.MODE_PRIVATE).getInt("incremented"
-                + achievementID, 0);
+    /**
+     * Adds count to the event. Counts are aggregated in memory for a second, then summed in the
+     * offline journal and sent in one increment per event on flush; recording an event set by
+     * {@link #setEventIds(String[])} doesn't allocate, so it's safe to call from the render
+     * thread.
+     */
+    public void recordEvent(String eventId, int count) {
+        eventCounters.record(eventId, count);
     }
 
     /**
-     * Submits achievements statuses to server.
+     * Sends the count of the event claimed from the journal, or releases it back to the journal
+     * if the client is gone.
      */
-    private void handleAchievementsSinceLastConnection() {
-        for (String id : unlockAchievementIds) {
-            if (getAchievementUnlocked(id)) {
-                Log.i("Unlocking achievement " + id);
-                unlockAchievement(id);
-                setAchievementUnlocked(id, true);
-            }
+    private void sendEvent(String eventId, long count) {
+        EventsClient client = eventsClient;
+        if ((client == null) || !rateLimiter.tryAcquire(SetClient.EVENTS)) {
+            deferSend(SetClient.EVENTS, OfflineJournal.OP_EVENT, eventId, count,
+                    Collections.singletonList(eventId), client != null);
+            return;
         }
-        for (String id : incrementAchievementIds) {
-            if (getAchievementIncrementSinceLastConnection(id) > 0) {
-                Log.i("Incrementing achievement " + id);
-                setAchievementIncrementSinceLastConnection(id, 0);
-            }
+        long left = count;
+        while (left > 0) {
+            int steps = (int) Math.min(left, Integer.MAX_VALUE);
+            client.increment(eventId, steps);
+            left -= steps;
         }
+        // increments of events have no result, the count is done once handed to the client
+        offlineJournal.complete(OfflineJournal.OP_EVENT, eventId, count);
     }
 
-    public void setLeaderboardIds(String[] leaderboardIds) {
-        this.leaderboardIds = leaderboardIds;
+    /**
+     * Submits event counts stored in the journal to server.
+     */
+    private void handleEventsSinceLastConnection() {
+        sendJournaled(OfflineJournal.OP_EVENT);
+    }
+
+    /**
+     * Sets how long event counts are aggregated in the journal before sending. 0 sends them as
+     * soon as they're written. 30 seconds by default.
+     */
+    public void setEventFlushInterval(long flushIntervalMs) {
+        eventFlush.setFlushIntervalMs(flushIntervalMs);
     }
 
+    /**
+     * @return handles of the ids in the same order, for
+     * {@link #submitScoreToLeaderboard(int, long)}.
+     */
+    public int[] setLeaderboardIds(String[] leaderboardIds) {
+        this.leaderboardIds = copyOf(leaderboardIds);
+        return handlesOf(this.leaderboardIds);
+    }
+
+    /**
+     * Safe to call from any thread, the score is applied on the worker thread.
+     */
     public void submitScoreToLeaderboard(String leaderboardId, long score) {
+        operationRing.offer(OperationRingBuffer.OP_SCORE, leaderboardId, score);
+    }
+
+    /**
+     * Same as {@link #submitScoreToLeaderboard(String, long)}, allocates nothing.
+     *
+     * @param leaderboardHandle returned by {@link #setLeaderboardIds(String[])}.
+     */
+    public void submitScoreToLeaderboard(int leaderboardHandle, long score) {
+        submitScoreToLeaderboard(idOf(leaderboardIds, leaderboardHandle), score);
+    }
+
+    private void applySubmitScore(final String leaderboardId, final long score) {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                submitScoreToLeaderboard(leaderboardId, score);
+            }
+        })) return;
+        metrics.onScoreSubmissionReceived();
+        int scoreOrder = scoreOrderOf(leaderboardId);
+        long nowMs = System.currentTimeMillis();
+        int improved = localBestScores.offer(leaderboardId, score, scoreOrder, nowMs);
+        if (improved == 0) {
+            // not a best of any time span, can't change the leaderboard
+            metrics.onScoreSubmissionFiltered();
+            return;
+        }
         if ((leaderboardsClient != null) && isSignedIn()) {
-            leaderboardsClient.submitScore(leaderboardId, score);
+            // without the order the best of the window isn't known, every score is sent
+            if (ScoreOrders.isKnown(scoreOrder) && (scoreBuffer.getFlushIntervalMs() > 0)) {
+                scoreBuffer.offer(leaderboardId, score, scoreOrder);
+            } else {
+                sendScore(leaderboardId, score, null);
+            }
         } else {
-            if (score > getMaxScoreSinceLastConnection(leaderboardId)) {
-                setMaxScoreSinceLastConnection(leaderboardId, score);
+            // the journal keeps the best score of each window improved since last connection
+            offlineJournal.appendScore(leaderboardId, score, scoreOrder, improved, nowMs);
+        }
+    }
+
+    /**
+     * Submits the score right away, bypassing coalescing and filtering, i.e. to show the player
+     * whether it's a new best. The result also updates the local best scores. Safe to call from
+     * any thread.
+     *
+     * @return task of the submission, or null if leaderboards client isn't connected and the
+     * score is stored offline.
+     */
+    public Task<ScoreSubmissionData> submitScoreImmediate(final String leaderboardId, long score) {
+        LeaderboardsClient client = leaderboardsClient;
+        metrics.onScoreSubmissionReceived();
+        if ((client == null) || !isSignedIn()) {
+            int scoreOrder = scoreOrderOf(leaderboardId);
+            long nowMs = System.currentTimeMillis();
+            int improved = (localBestScores != null)
+                    ? localBestScores.offer(leaderboardId, score, scoreOrder, nowMs)
+                    : LocalBestScores.IMPROVED_ALL;
+            offlineJournal.appendScore(leaderboardId, score, scoreOrder, improved, nowMs);
+            return null;
+        }
+        Task<ScoreSubmissionData> task = client.submitScoreImmediate(leaderboardId, score);
+        observeSubmission(task, OfflineJournal.OP_SCORE, leaderboardId, score, null);
+        metrics.onScoreSubmissionSent();
+        scoreCache.invalidate(leaderboardId);
+        seedBestScoresOnSuccess(leaderboardId, task);
+        return task;
+    }
+
+    private void seedBestScoresOnSuccess(final String leaderboardId,
+                                         Task<ScoreSubmissionData> task) {
+        task.addOnSuccessListener(BackgroundExecutor.get(),
+                new OnSuccessListener<ScoreSubmissionData>() {
+            @Override
+            public void onSuccess(ScoreSubmissionData submissionData) {
+                seedBestScores(leaderboardId, submissionData);
+            }
+        });
+    }
+
+    /**
+     * Raises the local best scores to the player bests of each time span returned by server.
+     */
+    private void seedBestScores(String leaderboardId, ScoreSubmissionData submissionData) {
+        if (localBestScores == null) return;
+        int scoreOrder = scoreOrderOf(leaderboardId);
+        long nowMs = System.currentTimeMillis();
+        for (int timeSpan = LeaderboardVariant.TIME_SPAN_DAILY;
+             timeSpan <= LeaderboardVariant.TIME_SPAN_ALL_TIME; timeSpan++) {
+            ScoreSubmissionData.Result result = submissionData.getScoreResult(timeSpan);
+            if (result != null) {
+                localBestScores.seed(leaderboardId, timeSpan, result.rawScore, scoreOrder, nowMs);
             }
         }
     }
 
-    private long getMaxScoreSinceLastConnection(String leaderboardId) {
-        return activity.getPreferences(Context.MODE_PRIVATE).getLong("score_" + leaderboardId, -1);
+    /**
+     * Sends the score to server, or stores it in the offline journal if the client is gone.
+     *
+     * @param journalKeys score keys claimed from the journal which the score is the best of,
+     *                    null if the score isn't journaled.
+     */
+    private void sendScore(String leaderboardId, long score, List<String> journalKeys) {
+        LeaderboardsClient client = leaderboardsClient;
+        if ((client == null) || !rateLimiter.tryAcquire(SetClient.LEADERBOARD)) {
+            deferSend(SetClient.LEADERBOARD, OfflineJournal.OP_SCORE, leaderboardId, score,
+                    journalKeys, client != null);
+            return;
+        }
+        Task<ScoreSubmissionData> task = client.submitScoreImmediate(leaderboardId, score);
+        observeSubmission(task, OfflineJournal.OP_SCORE, leaderboardId, score, journalKeys);
+        metrics.onScoreSubmissionSent();
+        scoreCache.invalidate(leaderboardId);
+        seedBestScoresOnSuccess(leaderboardId, task);
     }
 
-    private void setMaxScoreSinceLastConnection(String leaderboardId, long maxScore) {
-        activity.getPreferences(Context.MODE_PRIVATE).edit().putLong("score_" + leaderboardId,
-                maxScore).commit();
+    /**
+     * Leaves the work in the offline journal: claimed work is released, other work is stored.
+     * Work over the budget of its API family is replayed as soon as the budget allows.
+     */
+    private void deferSend(SetClient family, byte op, String id, long value,
+                           List<String> journalKeys, boolean overBudget) {
+        leaveInJournal(op, id, value, journalKeys);
+        if (!overBudget) return;
+        metrics.onApiCallRateLimited();
+        long delayMs = rateLimiter.getDelayMs(family);
+        if (delayMs != Long.MAX_VALUE) {
+            retryScheduler.schedule(delayMs);
+        }
     }
 
     /**
-     * Submits stored scores to server. '-1' indicates already submitted status.
+     * Sends the work stored in the offline journal with the clients of the signed in player.
+     *
+     * @return false if not signed in, the journal is replayed on the next sign in then.
      */
-    private void handleLeaderboardScoresSinceLastConnection() {
-        for (String id : leaderboardIds) {
-            long score = getMaxScoreSinceLastConnection(id);
-            if (score != -1) {
-                if (Log.DEBUG) {
-                    Log.i("Updating score = " + score + " for Leaderboard: " + id);
+    boolean replayJournalIfConnected() {
+        if (!isSignedIn()) return false;
+        if (achievementsClient != null) handleAchievementsSinceLastConnection();
+        if (leaderboardsClient != null) handleLeaderboardScoresSinceLastConnection();
+        if (eventsClient != null) handleEventsSinceLastConnection();
+        return true;
+    }
+
+    /**
+     * Claims the work of the operation which isn't in flight yet and sends it. It stays in the
+     * journal until server confirms it.
+     */
+    private void sendJournaled(byte op) {
+        OfflineJournal journal = offlineJournal;
+        if (journal == null) return;
+        if (op == OfflineJournal.OP_SCORE) {
+            for (Map.Entry<String, Map<Long, List<String>>> leaderboard
+                    : OfflineJournal.scoresByLeaderboard(journal.claim(op)).entrySet()) {
+                for (Map.Entry<Long, List<String>> score : leaderboard.getValue().entrySet()) {
+                    sendScore(leaderboard.getKey(), score.getKey(), score.getValue());
+                }
+            }
+            return;
+        }
+        for (Map.Entry<String, Long> entry : journal.claim(op).entrySet()) {
+            String id = entry.getKey();
+            long value = entry.getValue();
+            switch (op) {
+                case OfflineJournal.OP_UNLOCK:
+                    sendUnlock(id);
+                    break;
+                case OfflineJournal.OP_INCREMENT:
+                    incrementToSteps(id, value);
+                    break;
+                case OfflineJournal.OP_STEPS:
+                    sendSteps(id, value);
+                    break;
+                case OfflineJournal.OP_EVENT:
+                    sendEvent(id, value);
+                    break;
+            }
+        }
+        if (op == OfflineJournal.OP_INCREMENT) {
+            sendJournaled(OfflineJournal.OP_STEPS);
+        }
+    }
+
+    void onFlushJobStarted() {
+        metrics.onFlushJobStarted();
+    }
+
+    /**
+     * Tracks the result of the submission. Journaled work is completed in the journal on success,
+     * failed work stays in or is stored in the offline journal and is retried with backoff, unless
+     * the failure is permanent. The completion latency and result feed the adaptive flush
+     * scheduler.
+     *
+     * @param op journal operation of the submission.
+     * @param journalKeys ids of the work claimed from the journal, null if it isn't journaled.
+     */
+    private <T> void observeSubmission(Task<T> task, final byte op, final String id,
+                                       final long value, final List<String> journalKeys) {
+        final long startMs = SystemClock.elapsedRealtime();
+        retryScheduler.onSent(op, id);
+        task.addOnCompleteListener(BackgroundExecutor.get(), new OnCompleteListener<T>() {
+            @Override
+            public void onComplete(@NonNull Task<T> completedTask) {
+                long latencyMs = SystemClock.elapsedRealtime() - startMs;
+                boolean successful = completedTask.isSuccessful();
+                metrics.onSubmissionTaskCompleted(latencyMs, successful);
+                flushScheduler.onTaskCompleted(latencyMs, successful);
+                if (successful) {
+                    if (op == OfflineJournal.OP_STEPS) {
+                        achievementIndex.onStepsSet(id, (int) Math.min(value, Integer.MAX_VALUE));
+                    }
+                    completeJournaled(op, value, journalKeys);
+                    retryScheduler.onSucceeded(op, id);
+                } else {
+                    onSubmissionFailed(op, id, value, journalKeys, completedTask.getException());
                 }
-                submitScoreToLeaderboard(id, score);
-                setMaxScoreSinceLastConnection(id, -1);
             }
+        });
+    }
+
+    private void onSubmissionFailed(byte op, String id, long value, List<String> journalKeys,
+                                    Exception e) {
+        if (!RetryScheduler.isRetryable(e)) {
+            Log.w("Submission of " + id + " abandoned: " + e);
+            completeJournaled(op, value, journalKeys);
+            retryScheduler.onAbandoned(op, id);
+            return;
+        }
+        Log.w("Submission of " + id + " failed, retrying: " + e);
+        if (op == OfflineJournal.OP_UNLOCK) {
+            // lets the replayed unlock through
+            achievementIndex.markLocked(id);
+        }
+        leaveInJournal(op, id, value, journalKeys);
+        retryScheduler.onFailed(op, id);
+        Context context = appContext;
+        if (context != null) {
+            // sends the work if the game is closed before the retry
+            JournalFlushJob.schedule(context);
+        }
+    }
+
+    private void completeJournaled(byte op, long value, List<String> journalKeys) {
+        if (journalKeys == null) return;
+        for (String key : journalKeys) {
+            offlineJournal.complete(op, key, value);
         }
     }
 
+    /**
+     * Releases work claimed from the journal, stores other work in it. A score not sent is
+     * stored as the best of the current windows.
+     */
+    private void leaveInJournal(byte op, String id, long value, List<String> journalKeys) {
+        if (journalKeys != null) {
+            for (String key : journalKeys) {
+                offlineJournal.release(op, key, value);
+            }
+        } else if (op == OfflineJournal.OP_SCORE) {
+            offlineJournal.appendScore(id, value, scoreOrderOf(id), LocalBestScores.IMPROVED_ALL,
+                    System.currentTimeMillis());
+        } else {
+            offlineJournal.append(op, id, value);
+        }
+    }
+
+    /**
+     * Sets the budget of submissions of an API family. Submissions over it are stored offline
+     * and sent as soon as the budget allows. A burst of 30 and 30 per minute by default.
+     *
+     * @param family {@link SetClient#ACHIEVEMENTS}, {@link SetClient#LEADERBOARD} or
+     *               {@link SetClient#EVENTS}.
+     * @param burst max number of submissions sent at once.
+     * @param perMinute sustained number of submissions per minute.
+     */
+    public void setApiRateLimit(SetClient family, int burst, int perMinute) {
+        rateLimiter.setLimit(family, burst, perMinute);
+    }
+
+    /**
+     * Sets the score order of the leaderboard, so its scores are coalesced before the metadata
+     * is loaded. The order from the loaded metadata is used otherwise.
+     *
+     * @param scoreOrder {@link Leaderboard#SCORE_ORDER_LARGER_IS_BETTER} or
+     *                   {@link Leaderboard#SCORE_ORDER_SMALLER_IS_BETTER}.
+     */
+    public void setLeaderboardScoreOrder(String leaderboardId, int scoreOrder) {
+        scoreOrders.put(leaderboardId, scoreOrder);
+    }
+
+    /**
+     * @return score order of the leaderboard or {@link ScoreOrders#UNKNOWN}.
+     */
+    private int scoreOrderOf(String leaderboardId) {
+        Integer scoreOrder = scoreOrders.get(leaderboardId);
+        if (scoreOrder != null) return scoreOrder;
+        LeaderboardMetadataCache metadataCache = leaderboardMetadataCache;
+        LeaderboardMetadata metadata = (metadataCache != null)
+                ? metadataCache.get(leaderboardId) : null;
+        return (metadata != null) ? metadata.getScoreOrder() : ScoreOrders.UNKNOWN;
+    }
+
+    /**
+     * Sets how long submitted scores are coalesced before the best one of each leaderboard is
+     * sent. Scores of a leaderboard whose score order is unknown, see
+     * {@link #setLeaderboardScoreOrder(String, int)}, are not coalesced. 0 sends every score
+     * immediately. 5 seconds by default.
+     */
+    public void setScoreFlushInterval(long flushIntervalMs) {
+        scoreBuffer.setFlushIntervalMs(flushIntervalMs);
+    }
+
+    /**
+     * Sends the buffered best scores now, i.e. before showing a leaderboard.
+     */
+    public void flushScores() {
+        scoreBuffer.flush();
+    }
+
+    /**
+     * Sends the buffered achievement increments now, i.e. before showing achievements.
+     */
+    public void flushAchievements() {
+        incrementFlush.flush();
+    }
+
+    public GameServicesMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Submits the best scores of each window stored since last connection to server, each
+     * distinct score of a leaderboard once. They were already recorded as local bests when
+     * stored, so they are sent directly.
+     */
+    private void handleLeaderboardScoresSinceLastConnection() {
+        sendJournaled(OfflineJournal.OP_SCORE);
+    }
+
+    /**
+     * Answers from the local best scores, without a request. Scores submitted on this device
+     * are taken into account once the worker thread applies them.
+     *
+     * @param timeSpanOptions see {@link #loadCurrentPlayerLeaderboardScore(String, int)}.
+     * @return true if the score beats the local best of the current time span window in the
+     * score order of the leaderboard, always true while the order is unknown, see
+     * {@link #setLeaderboardScoreOrder(String, int)}.
+     */
+    public boolean isNewBestScore(String leaderboardId, long score, int timeSpanOptions) {
+        if (localBestScores == null) return true;
+        int timeSpanVariant = (timeSpanOptions < 0 || timeSpanOptions > 2) ? 2 : timeSpanOptions;
+        return localBestScores.isNewBest(leaderboardId, score, timeSpanVariant,
+                scoreOrderOf(leaderboardId), System.currentTimeMillis());
+    }
+
+    /**
+     * @param timeSpanOptions see {@link #loadCurrentPlayerLeaderboardScore(String, int)}.
+     * @return local best score of the current time span window, or -1 if there is none.
+     */
+    public long getLocalBestScore(String leaderboardId, int timeSpanOptions) {
+        if (localBestScores == null) return -1;
+        int timeSpanVariant = (timeSpanOptions < 0 || timeSpanOptions > 2) ? 2 : timeSpanOptions;
+        return localBestScores.getBest(leaderboardId, timeSpanVariant, System.currentTimeMillis(),
+                -1);
+    }
+
     public void showLeaderboards() {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                showLeaderboards();
+            }
+        })) return;
         if (leaderboardsClient == null) return;
-        leaderboardsClient.getAllLeaderboardsIntent()
+        final long tapMs = SystemClock.elapsedRealtime();
+        Intent cachedIntent = uiIntentCache.get(UiIntentCache.KEY_ALL_LEADERBOARDS);
+        if (cachedIntent != null) {
+            startUi(cachedIntent, RC_LEADERBOARD_UI, tapMs, true);
+            return;
+        }
+        uiIntentCache.cache(UiIntentCache.KEY_ALL_LEADERBOARDS,
+                leaderboardsClient.getAllLeaderboardsIntent())
                 .addOnSuccessListener(new OnSuccessListener<Intent>() {
                     @Override
                     public void onSuccess(Intent intent) {
-                        activity.startActivityForResult(intent, RC_LEADERBOARD_UI);
+                        startUi(intent, RC_LEADERBOARD_UI, tapMs, false);
                     }
                 })
                 .addOnFailureListener(new OnFailureListener() {
                     @Override
                     public void onFailure(@NonNull Exception e) {
-                        gameServicesListener.handleException(e, appContext.getString(R.string.error_leaderboards));
+                        notifyException(e, appContext.getString(R.string.error_leaderboards));
                     }
                 });
     }
 
-    public void showLeaderboard(String leaderboardId) {
+    public void showLeaderboard(final String leaderboardId) {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                showLeaderboard(leaderboardId);
+            }
+        })) return;
         if (leaderboardsClient == null) return;
-        leaderboardsClient.getLeaderboardIntent(leaderboardId)
+        final long tapMs = SystemClock.elapsedRealtime();
+        String key = UiIntentCache.leaderboardKey(leaderboardId);
+        Intent cachedIntent = uiIntentCache.get(key);
+        if (cachedIntent != null) {
+            startUi(cachedIntent, RC_LEADERBOARD_UI, tapMs, true);
+            return;
+        }
+        uiIntentCache.cache(key, leaderboardsClient.getLeaderboardIntent(leaderboardId))
                 .addOnSuccessListener(new OnSuccessListener<Intent>() {
                     @Override
                     public void onSuccess(Intent intent) {
-                        activity.startActivityForResult(intent, RC_LEADERBOARD_UI);
+                        startUi(intent, RC_LEADERBOARD_UI, tapMs, false);
                     }
                 })
                 .addOnFailureListener(new OnFailureListener() {
                     @Override
                     public void onFailure(@NonNull Exception e) {
-                        gameServicesListener.handleException(e, appContext.getString(R.string.error_leaderboards));
+                        notifyException(e, appContext.getString(R.string.error_leaderboards));
                     }
                 });
     }
 
+    private void startUi(Intent intent, int requestCode, long tapMs, boolean cached) {
+        if (activity == null) return; // destroyed in meantime
+        activity.startActivityForResult(intent, requestCode);
+        metrics.onUiShown(SystemClock.elapsedRealtime() - tapMs, cached);
+    }
+
+    /**
+     * Requests in background the Intents of achievements and leaderboards screens which aren't
+     * cached yet, so the show*() calls start them without a delay.
+     */
+    private void prefetchUiIntents() {
+        AchievementsClient achievements = achievementsClient;
+        if ((achievements != null) && !uiIntentCache.contains(UiIntentCache.KEY_ACHIEVEMENTS)) {
+            uiIntentCache.cache(UiIntentCache.KEY_ACHIEVEMENTS, achievements.getAchievementsIntent());
+        }
+        LeaderboardsClient leaderboards = leaderboardsClient;
+        if (leaderboards == null) return;
+        if (!uiIntentCache.contains(UiIntentCache.KEY_ALL_LEADERBOARDS)) {
+            uiIntentCache.cache(UiIntentCache.KEY_ALL_LEADERBOARDS,
+                    leaderboards.getAllLeaderboardsIntent());
+        }
+        if (leaderboardIds == null) return;
+        for (String leaderboardId : leaderboardIds) {
+            String key = UiIntentCache.leaderboardKey(leaderboardId);
+            if (!uiIntentCache.contains(key)) {
+                uiIntentCache.cache(key, leaderboards.getLeaderboardIntent(leaderboardId));
+            }
+        }
+    }
+
     /**
      * Retrieves asynchronously scores result for leaderboardId. If a result retrieved successfully
      * constructs data object {@link LeaderboardUserScore} and transfers result with notify listener.
      * <b>To use this function implement {@link LeaderboardServicesListener}</b>
      *
+     * A cached result is transferred to the listener right away, see
+     * {@link #setLeaderboardScoreCacheTtl(long, long)}. Concurrent calls for the same leaderboard
+     * and time span share one request.
+     *
      * @param timeSpanOptions 0 - time span daily when scores are reset every day,
      *                        1 - time span weekly when scores are reset once per week.
      *                        2 - time span all time when scores are never reset. Used by default.
      */
-    public void loadCurrentPlayerLeaderboardScore(final String leaderboardId, int timeSpanOptions) {
-        if (leaderboardsClient == null) return;
+    public void loadCurrentPlayerLeaderboardScore(final String leaderboardId,
+                                                  final int timeSpanOptions) {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                loadCurrentPlayerLeaderboardScore(leaderboardId, timeSpanOptions);
+            }
+        })) return;
         int timeSpanVariant = (timeSpanOptions < 0 || timeSpanOptions > 2) ? 2 : timeSpanOptions;
 
-        leaderboardsClient.loadCurrentPlayerLeaderboardScore(leaderboardId, timeSpanVariant,
-                LeaderboardVariant.COLLECTION_PUBLIC).addOnSuccessListener(
-                        new OnSuccessListener<AnnotatedData<LeaderboardScore>>() {
+        LeaderboardUserScore cachedScore = scoreCache.getCached(leaderboardId, timeSpanVariant,
+                LeaderboardVariant.COLLECTION_PUBLIC);
+        if (cachedScore != null) {
+            notifyLeaderboardScore(leaderboardId, cachedScore);
+            return;
+        }
+        Task<LeaderboardUserScore> task = scoreCache.load(leaderboardId, timeSpanVariant,
+                LeaderboardVariant.COLLECTION_PUBLIC);
+        if (task == null) return;
+        task.addOnSuccessListener(new OnSuccessListener<LeaderboardUserScore>() {
             @Override
-            public void onSuccess(AnnotatedData<LeaderboardScore> leaderboardScoreAnnotatedData) {
-                LeaderboardScore scoreResult =  leaderboardScoreAnnotatedData.get();
-                LeaderboardUserScore userScore = new LeaderboardUserScore();
-                userScore.setDisplayRank(scoreResult.getDisplayRank());
-                userScore.setDisplayScore(scoreResult.getDisplayScore());
-                userScore.setPlayerName(scoreResult.getScoreHolderDisplayName());
-                userScore.setRank(scoreResult.getRank());
-                userScore.setRawScore(scoreResult.getRawScore());
-                Log.i("xo", "loaded user score = " + scoreResult.getRawScore());
-                leaderboardServicesListener.onLeaderboardScoreResultCurrPlayer(leaderboardId, userScore);
+            public void onSuccess(LeaderboardUserScore userScore) {
+                if (userScore == null) return; // no score of the player on the leaderboard
+                Log.i("xo", "loaded user score = " + userScore.getRawScore());
+                notifyLeaderboardScore(leaderboardId, userScore);
             }
         });
     }
 
+    /**
+     * Sets how long loaded player scores are cached.
+     *
+     * @param ttlMs age of a cached score served without a request. 1 minute by default.
+     * @param staleWhileRevalidateMs time after ttlMs a cached score is still served, while it's
+     *                               reloaded in background. 5 minutes by default.
+     */
+    public void setLeaderboardScoreCacheTtl(long ttlMs, long staleWhileRevalidateMs) {
+        scoreCache.setTtl(ttlMs, staleWhileRevalidateMs);
+    }
+
+    /**
+     * Loads current player scores of all leaderboards set by {@link #setLeaderboardIds(String[])}
+     * concurrently, and transfers them in one result with per leaderboard load times and failures.
+     * Cached scores are used as in {@link #loadCurrentPlayerLeaderboardScore(String, int)}.
+     *
+     * @param timeSpanOptions see {@link #loadCurrentPlayerLeaderboardScore(String, int)}.
+     * @param maxParallel max number of requests running at the same time.
+     */
+    public void loadAllCurrentPlayerLeaderboardScores(final int timeSpanOptions,
+                                                      final int maxParallel,
+                                                      final LeaderboardScoresListener listener) {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                loadAllCurrentPlayerLeaderboardScores(timeSpanOptions, maxParallel, listener);
+            }
+        })) return;
+        int timeSpanVariant = (timeSpanOptions < 0 || timeSpanOptions > 2) ? 2 : timeSpanOptions;
+        String[] ids = (leaderboardIds != null) ? leaderboardIds : new String[0];
+        new LeaderboardScoresFanOut(scoreCache, ids, timeSpanVariant,
+                LeaderboardVariant.COLLECTION_PUBLIC, maxParallel,
+                new LeaderboardScoresFanOut.Callback() {
+            @Override
+            public void onComplete(final LeaderboardScoresResult result) {
+                if (Log.DEBUG) {
+                    Log.i(TAG, "Loaded " + result.getScores().size() + " leaderboard scores in "
+                            + result.getTotalTimeMs() + " ms, failures: "
+                            + result.getFailures().size());
+                }
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onLeaderboardScoresResult(result);
+                    }
+                });
+            }
+        }).start();
+    }
+
+    /**
+     * Opens a pager over top scores or player centered scores of the leaderboard, which delivers
+     * pages to the listener and prefetches the next page in background. Close it when done.
+     *
+     * @param timeSpanOptions see {@link #loadCurrentPlayerLeaderboardScore(String, int)}.
+     * @param playerCentered true to start from the page around the current player, false to start
+     *                       from the top scores.
+     * @param pageSize number of entries per page, up to {@link LeaderboardPager#MAX_PAGE_SIZE}.
+     * @return pager or null if leaderboards client isn't connected.
+     */
+    public LeaderboardPager openLeaderboardPager(String leaderboardId, int timeSpanOptions,
+                                                 boolean playerCentered, int pageSize,
+                                                 LeaderboardPager.PageListener listener) {
+        if (leaderboardsClient == null) return null;
+        int timeSpanVariant = (timeSpanOptions < 0 || timeSpanOptions > 2) ? 2 : timeSpanOptions;
+        return new LeaderboardPager(leaderboardsClient, leaderboardId, timeSpanVariant,
+                LeaderboardVariant.COLLECTION_PUBLIC, playerCentered, pageSize, listener,
+                listenerExecutor);
+    }
+
+    /**
+     * Answers from memory, without a request: metadata is loaded after connect and stored on
+     * disk, so it's available on later launches before sign in. Metadata older than
+     * {@link #setLeaderboardMetadataTtl(long)} is reloaded in background.
+     *
+     * @return metadata of the leaderboard or null if it was never loaded.
+     */
+    public LeaderboardMetadata getLeaderboardMetadata(String leaderboardId) {
+        if (leaderboardMetadataCache == null) return null;
+        leaderboardMetadataCache.refreshIfStale(leaderboardsClient);
+        return leaderboardMetadataCache.get(leaderboardId);
+    }
+
+    /**
+     * Same as {@link #getLeaderboardMetadata(String)} for all leaderboards of the game.
+     *
+     * @return leaderboardId -> metadata in the order of Play Console, empty if never loaded.
+     */
+    public Map<String, LeaderboardMetadata> getAllLeaderboardMetadata() {
+        if (leaderboardMetadataCache == null) return Collections.emptyMap();
+        leaderboardMetadataCache.refreshIfStale(leaderboardsClient);
+        return leaderboardMetadataCache.getAll();
+    }
+
+    /**
+     * Sets the age of the leaderboard metadata after which it's reloaded in background.
+     * 24 hours by default.
+     */
+    public void setLeaderboardMetadataTtl(long ttlMs) {
+        if (leaderboardMetadataCache != null) {
+            leaderboardMetadataCache.setTtl(ttlMs);
+        }
+    }
+
+    /**
+     * Saves the game data to the snapshot in background. Saves of the same snapshot within
+     * {@link #setSnapshotSaveInterval(long)} are coalesced into one commit of the latest data,
+     * data equal to the last committed one isn't written, and payloads are compressed. Saves made
+     * while signed out are committed after the next sign in. Safe to call from any thread.
+     * Requires {@link SetClient#SNAPSHOTS}.
+     *
+     * @param data must not be modified after the call.
+     */
+    public void saveSnapshot(String name, byte[] data) {
+        snapshotStore.save(name, data);
+    }
+
+    /**
+     * Loads the game data saved by {@link #saveSnapshot(String, byte[])}. A save of the snapshot
+     * which isn't committed yet is returned without a request.
+     */
+    public void loadSnapshot(String name, final SnapshotListener listener) {
+        snapshotStore.load(name, new SnapshotStore.LoadCallback() {
+            @Override
+            public void onLoaded(final String name, final byte[] data) {
+                deliverOnMainOrExecutor(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSnapshotLoaded(name, data);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailed(final String name, final Exception e) {
+                Log.e(TAG, e);
+                deliverOnMainOrExecutor(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSnapshotLoadFailed(name, e);
+                        if (appContext != null) {
+                            notifyException(e, appContext.getString(R.string.error_snapshots));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Sets how long saves of a snapshot are coalesced before the commit. 3 seconds by default.
+     */
+    public void setSnapshotSaveInterval(long saveIntervalMs) {
+        snapshotStore.setSaveIntervalMs(saveIntervalMs);
+    }
+
+    /**
+     * Commits the pending saves now, i.e. before the game exits.
+     */
+    public void flushSnapshots() {
+        snapshotStore.flush();
+    }
+
+    /**
+     * Sets the listener of turn based match updates. Updates pushed by the server and found by
+     * the background poll are delivered in one call per pass of the callback executor, i.e. once
+     * per frame with {@link com.almatime.utils.FrameCallbackExecutor}. Polling runs while
+     * connected and stops in {@link #onPause()} until the next {@link #signInSilently()}.
+     * Requires {@link SetClient#MULTIPLAYER}.
+     */
+    public void setMatchUpdateListener(final MatchUpdateListener listener) {
+        matchUpdatePoller.setListener((listener == null) ? null : new MatchUpdatePoller.Listener() {
+            @Override
+            public void onMatchesUpdated(List<TurnBasedMatch> updated, List<String> removedIds) {
+                listener.onMatchesUpdated(updated, removedIds);
+            }
+        });
+    }
+
+    /**
+     * Sets the time between polls of turn based matches. 1 minute by default, applied on the next
+     * start of polling.
+     */
+    public void setMatchPollInterval(long pollIntervalMs) {
+        matchUpdatePoller.setPollIntervalMs(pollIntervalMs);
+    }
+
+    /**
+     * @return turn based multiplayer client for the calls not wrapped by this class, i.e. to
+     * create a match, or null if not connected.
+     */
+    public TurnBasedMultiplayerClient getTurnBasedMultiplayerClient() {
+        return turnBasedMultiplayerClient;
+    }
+
+    /**
+     * Sends the turn, see {@link TurnDataCodec} for building match data.
+     *
+     * @return task of the turn, or null if multiplayer client isn't connected.
+     */
+    public Task<TurnBasedMatch> takeTurn(String matchId, byte[] matchData,
+                                         String pendingParticipantId) {
+        TurnBasedMultiplayerClient client = turnBasedMultiplayerClient;
+        if (client == null) return null;
+        return client.takeTurn(matchId, matchData, pendingParticipantId)
+                .addOnFailureListener(multiplayerFailureListener);
+    }
+
+    /**
+     * Finishes the match with the final match data.
+     *
+     * @return task of the finish, or null if multiplayer client isn't connected.
+     */
+    public Task<TurnBasedMatch> finishMatch(String matchId, byte[] matchData) {
+        TurnBasedMultiplayerClient client = turnBasedMultiplayerClient;
+        if (client == null) return null;
+        return client.finishMatch(matchId, matchData)
+                .addOnFailureListener(multiplayerFailureListener);
+    }
+
+    public void showMatchInbox() {
+        if (signInState.isConnecting() && enqueueWhileConnecting(new Runnable() {
+            @Override
+            public void run() {
+                showMatchInbox();
+            }
+        })) return;
+        if (turnBasedMultiplayerClient == null) return;
+        turnBasedMultiplayerClient.getInboxIntent()
+                .addOnSuccessListener(new OnSuccessListener<Intent>() {
+                    @Override
+                    public void onSuccess(Intent intent) {
+                        if (activity != null) {
+                            activity.startActivityForResult(intent, RC_MATCH_INBOX_UI);
+                        }
+                    }
+                })
+                .addOnFailureListener(multiplayerFailureListener);
+    }
+
+    private final OnFailureListener multiplayerFailureListener = new OnFailureListener() {
+        @Override
+        public void onFailure(@NonNull Exception e) {
+            if (appContext != null) {
+                notifyException(e, appContext.getString(R.string.error_multiplayer));
+            }
+        }
+    };
+
+    static LeaderboardUserScore toUserScore(LeaderboardScore scoreResult) {
+        LeaderboardUserScore userScore = new LeaderboardUserScore();
+        userScore.setDisplayRank(scoreResult.getDisplayRank());
+        userScore.setDisplayScore(scoreResult.getDisplayScore());
+        userScore.setPlayerName(scoreResult.getScoreHolderDisplayName());
+        userScore.setRank(scoreResult.getRank());
+        userScore.setRawScore(scoreResult.getRawScore());
+        return userScore;
+    }
+
     public void runTaskOnSuccessSignIn() {
         if (taskOnSignInSuccess != null) {
             taskOnSignInSuccess.run();
@@ -503,7 +2193,10 @@ public class GameServices {
         }
         // if user canceled i.e back navigation.
         if (responseCode == Activity.RESULT_CANCELED) {
-            if (requestCode == RC_SIGN_IN) gameServicesListener.onSignInCanceled();
+            if (requestCode == RC_SIGN_IN) {
+                if (signInState.isConnecting()) onDisconnected();
+                deliver(notifySignInCanceled);
+            }
             return;
         }
         if (requestCode == RC_SIGN_IN) {
@@ -513,21 +2206,55 @@ public class GameServices {
                 Log.i("isSuccessful = true");
                 GoogleSignInAccount account = task.getResult();
                 onConnected(account);
-                gameServicesListener.onSignInSucceded();
-                runTaskOnSuccessSignIn();
             } else {
                 Log.i("task exception = " + task.getException());
                 onDisconnected();
-                gameServicesListener.handleException(task.getException(), activity.getString(R.string.error_restart));
+                notifyException(task.getException(), activity.getString(R.string.error_restart));
             }
         }
     }
 
+    /**
+     * Call this from onPause(). Sends the buffered work, as the process may be killed
+     * in background. Blocks for 50 ms at most.
+     */
+    public void onPause() {
+        fastFlush(PAUSE_FLUSH_BUDGET_MS);
+        matchUpdatePoller.stop();
+    }
+
+    /**
+     * Sends the buffered work, or writes what can't be sent to the offline journal on disk,
+     * within the time budget. Work left in the journal is sent by {@link JournalFlushJob}
+     * once network is available, even if the game isn't opened again.
+     */
+    private void fastFlush(long budgetMs) {
+        long deadlineMs = SystemClock.elapsedRealtime() + budgetMs;
+        // after the operations still waiting for the worker thread
+        operationRing.offer(OperationRingBuffer.OP_FLUSH, null, 0);
+        operationRing.awaitConsumed(budgetMs);
+        OfflineJournal journal = offlineJournal;
+        if (journal == null) return;
+        journal.flushBlocking(Math.max(0, deadlineMs - SystemClock.elapsedRealtime()));
+        if (!journal.isEmpty() && (appContext != null)) {
+            JournalFlushJob.schedule(appContext);
+        }
+    }
+
+    private void flushBuffers() {
+        scoreBuffer.flush();
+        incrementFlush.flush();
+        eventCounters.flush();
+        eventFlush.flush();
+        snapshotStore.flush();
+    }
+
     /**
      * Call this from destroy();
      */
     public void destroy() {
         //if (isSignedIn()) signOut();
+        fastFlush(JOURNAL_FLUSH_TIMEOUT_MS);
         googleSignInClient = null;
         gameServicesListener = null;
         activity = null;
@@ -0,0 +1,406 @@
+package com.almatime.gameservices;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of the work done by {@link GameServices}. Obtain it with
+ * {@link GameServices#getMetrics()}; values are updated from any thread and may be read at any
+ * time, i.e. for a debug overlay or analytics.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class GameServicesMetrics {
+
+    private final AtomicLong scoreSubmissionsReceived = new AtomicLong();
+    private final AtomicLong scoreSubmissionsSent = new AtomicLong();
+    private final AtomicLong scoreSubmissionsFiltered = new AtomicLong();
+    private final AtomicLong incrementsReceived = new AtomicLong();
+    private final AtomicLong incrementsSent = new AtomicLong();
+    private final AtomicLong operationsQueued = new AtomicLong();
+    private final AtomicLong operationsRejected = new AtomicLong();
+    private final AtomicLong operationQueueDepth = new AtomicLong();
+    private final AtomicLong operationQueueMaxDepth = new AtomicLong();
+    private final AtomicLong operationsReplayed = new AtomicLong();
+    private final AtomicLong operationWaitTotalMs = new AtomicLong();
+    private final AtomicLong operationWaitMaxMs = new AtomicLong();
+    private final AtomicLong silentSignInsStarted = new AtomicLong();
+    private final AtomicLong silentSignInsAvoided = new AtomicLong();
+    private final AtomicLong clientInitsAvoided = new AtomicLong();
+    private final AtomicLong uiIntentCacheHits = new AtomicLong();
+    private final AtomicLong uiIntentCacheMisses = new AtomicLong();
+    private final AtomicLong tapToUiTotalMs = new AtomicLong();
+    private final AtomicLong tapToUiMaxMs = new AtomicLong();
+    private final AtomicLong apiCallsRateLimited = new AtomicLong();
+    private final AtomicLong submissionTasksCompleted = new AtomicLong();
+    private final AtomicLong submissionTasksFailed = new AtomicLong();
+    private final AtomicLong submissionLatencyTotalMs = new AtomicLong();
+    private final AtomicLong flushIntervalScalePercent = new AtomicLong(100);
+    private final AtomicLong submissionRetries = new AtomicLong();
+    private final AtomicLong submissionRetriesSucceeded = new AtomicLong();
+    private final AtomicLong submissionsAbandoned = new AtomicLong();
+    private final AtomicLong flushJobRuns = new AtomicLong();
+    private final AtomicLong snapshotSavesRequested = new AtomicLong();
+    private final AtomicLong snapshotSavesCoalesced = new AtomicLong();
+    private final AtomicLong snapshotWritesSkipped = new AtomicLong();
+    private final AtomicLong snapshotsCommitted = new AtomicLong();
+    private final AtomicLong snapshotBytesUncompressed = new AtomicLong();
+    private final AtomicLong snapshotBytesWritten = new AtomicLong();
+    private final AtomicLong snapshotCommitTotalMs = new AtomicLong();
+    private final AtomicLong snapshotCommitMaxMs = new AtomicLong();
+
+    GameServicesMetrics() {
+    }
+
+    /**
+     * @return number of scores passed to {@link GameServices#submitScoreToLeaderboard(String, long)}.
+     */
+    public long getScoreSubmissionsReceived() {
+        return scoreSubmissionsReceived.get();
+    }
+
+    /**
+     * @return number of scores actually sent to {@code LeaderboardsClient}.
+     */
+    public long getScoreSubmissionsSent() {
+        return scoreSubmissionsSent.get();
+    }
+
+    /**
+     * @return number of scores dropped on the device, as they can't improve the best score of
+     * any time span.
+     */
+    public long getScoreSubmissionsFiltered() {
+        return scoreSubmissionsFiltered.get();
+    }
+
+    /**
+     * @return number of calls of {@link GameServices#incrementAchievement(String, int)}.
+     */
+    public long getIncrementsReceived() {
+        return incrementsReceived.get();
+    }
+
+    /**
+     * @return number of combined increments actually sent to {@code AchievementsClient}.
+     */
+    public long getIncrementsSent() {
+        return incrementsSent.get();
+    }
+
+    /**
+     * @return number of operations queued while connecting.
+     */
+    public long getOperationsQueued() {
+        return operationsQueued.get();
+    }
+
+    /**
+     * @return number of operations which didn't fit into the full queue while connecting.
+     */
+    public long getOperationsRejected() {
+        return operationsRejected.get();
+    }
+
+    /**
+     * @return number of operations waiting for the connection now.
+     */
+    public long getOperationQueueDepth() {
+        return operationQueueDepth.get();
+    }
+
+    public long getOperationQueueMaxDepth() {
+        return operationQueueMaxDepth.get();
+    }
+
+    /**
+     * @return average time queued operations waited for the connection in milliseconds.
+     */
+    public long getOperationWaitAverageMs() {
+        long replayed = operationsReplayed.get();
+        return (replayed > 0) ? operationWaitTotalMs.get() / replayed : 0;
+    }
+
+    public long getOperationWaitMaxMs() {
+        return operationWaitMaxMs.get();
+    }
+
+    /**
+     * @return number of silent sign in requests sent to Google Sign-In.
+     */
+    public long getSilentSignInsStarted() {
+        return silentSignInsStarted.get();
+    }
+
+    /**
+     * @return number of {@link GameServices#signInSilently()} calls served without a request,
+     * as the account was still valid or a sign in was already in flight.
+     */
+    public long getSilentSignInsAvoided() {
+        return silentSignInsAvoided.get();
+    }
+
+    /**
+     * @return number of sign ins which reused the clients of the same account.
+     */
+    public long getClientInitsAvoided() {
+        return clientInitsAvoided.get();
+    }
+
+    /**
+     * @return number of achievements and leaderboards screens started from a cached Intent.
+     */
+    public long getUiIntentCacheHits() {
+        return uiIntentCacheHits.get();
+    }
+
+    /**
+     * @return number of achievements and leaderboards screens which waited for an Intent request.
+     */
+    public long getUiIntentCacheMisses() {
+        return uiIntentCacheMisses.get();
+    }
+
+    /**
+     * @return average time from a show*() call to starting the screen in milliseconds.
+     */
+    public long getTapToUiAverageMs() {
+        long shown = uiIntentCacheHits.get() + uiIntentCacheMisses.get();
+        return (shown > 0) ? tapToUiTotalMs.get() / shown : 0;
+    }
+
+    public long getTapToUiMaxMs() {
+        return tapToUiMaxMs.get();
+    }
+
+    /**
+     * @return number of submissions over the budget of their API family, stored offline and sent
+     * once the budget allows.
+     */
+    public long getApiCallsRateLimited() {
+        return apiCallsRateLimited.get();
+    }
+
+    /**
+     * @return number of completed submission Tasks, successful or failed.
+     */
+    public long getSubmissionTasksCompleted() {
+        return submissionTasksCompleted.get();
+    }
+
+    public long getSubmissionTasksFailed() {
+        return submissionTasksFailed.get();
+    }
+
+    /**
+     * @return average time from a submission to the completion of its Task in milliseconds.
+     */
+    public long getSubmissionLatencyAverageMs() {
+        long completed = submissionTasksCompleted.get();
+        return (completed > 0) ? submissionLatencyTotalMs.get() / completed : 0;
+    }
+
+    /**
+     * @return current flush intervals in percent of the configured ones, above 100 while
+     * the server is slow or failing.
+     */
+    public long getFlushIntervalScalePercent() {
+        return flushIntervalScalePercent.get();
+    }
+
+    /**
+     * @return number of submissions sent again after a failure.
+     */
+    public long getSubmissionRetries() {
+        return submissionRetries.get();
+    }
+
+    /**
+     * @return number of failed submissions which succeeded on a retry.
+     */
+    public long getSubmissionRetriesSucceeded() {
+        return submissionRetriesSucceeded.get();
+    }
+
+    /**
+     * @return number of failed submissions dropped, because a retry can't succeed.
+     */
+    public long getSubmissionsAbandoned() {
+        return submissionsAbandoned.get();
+    }
+
+    /**
+     * @return number of runs of the background job sending the offline journal, in this process.
+     */
+    public long getFlushJobRuns() {
+        return flushJobRuns.get();
+    }
+
+    /**
+     * @return number of calls of {@link GameServices#saveSnapshot(String, byte[])}.
+     */
+    public long getSnapshotSavesRequested() {
+        return snapshotSavesRequested.get();
+    }
+
+    /**
+     * @return number of saves replaced by a newer save of the same snapshot before the commit.
+     */
+    public long getSnapshotSavesCoalesced() {
+        return snapshotSavesCoalesced.get();
+    }
+
+    /**
+     * @return number of saves not written as the content equals the last committed one.
+     */
+    public long getSnapshotWritesSkipped() {
+        return snapshotWritesSkipped.get();
+    }
+
+    public long getSnapshotsCommitted() {
+        return snapshotsCommitted.get();
+    }
+
+    /**
+     * @return size of the committed snapshots data before compression.
+     */
+    public long getSnapshotBytesUncompressed() {
+        return snapshotBytesUncompressed.get();
+    }
+
+    /**
+     * @return size of the committed snapshots payloads actually written.
+     */
+    public long getSnapshotBytesWritten() {
+        return snapshotBytesWritten.get();
+    }
+
+    /**
+     * @return average time from opening a snapshot to the end of its commit in milliseconds.
+     */
+    public long getSnapshotCommitAverageMs() {
+        long committed = snapshotsCommitted.get();
+        return (committed > 0) ? snapshotCommitTotalMs.get() / committed : 0;
+    }
+
+    public long getSnapshotCommitMaxMs() {
+        return snapshotCommitMaxMs.get();
+    }
+
+    void onScoreSubmissionReceived() {
+        scoreSubmissionsReceived.incrementAndGet();
+    }
+
+    void onScoreSubmissionSent() {
+        scoreSubmissionsSent.incrementAndGet();
+    }
+
+    void onScoreSubmissionFiltered() {
+        scoreSubmissionsFiltered.incrementAndGet();
+    }
+
+    void onIncrementReceived() {
+        incrementsReceived.incrementAndGet();
+    }
+
+    void onIncrementSent() {
+        incrementsSent.incrementAndGet();
+    }
+
+    void onSilentSignInStarted() {
+        silentSignInsStarted.incrementAndGet();
+    }
+
+    void onSilentSignInAvoided() {
+        silentSignInsAvoided.incrementAndGet();
+    }
+
+    void onClientInitAvoided() {
+        clientInitsAvoided.incrementAndGet();
+    }
+
+    void onOperationQueued(int depth) {
+        operationsQueued.incrementAndGet();
+        operationQueueDepth.set(depth);
+        setMax(operationQueueMaxDepth, depth);
+    }
+
+    void onOperationRejected() {
+        operationsRejected.incrementAndGet();
+    }
+
+    void onOperationReplayed(int depth, long waitMs) {
+        operationsReplayed.incrementAndGet();
+        operationQueueDepth.set(depth);
+        operationWaitTotalMs.addAndGet(waitMs);
+        setMax(operationWaitMaxMs, waitMs);
+    }
+
+    void onUiShown(long tapToUiMs, boolean cached) {
+        if (cached) {
+            uiIntentCacheHits.incrementAndGet();
+        } else {
+            uiIntentCacheMisses.incrementAndGet();
+        }
+        tapToUiTotalMs.addAndGet(tapToUiMs);
+        setMax(tapToUiMaxMs, tapToUiMs);
+    }
+
+    void onApiCallRateLimited() {
+        apiCallsRateLimited.incrementAndGet();
+    }
+
+    void onSubmissionTaskCompleted(long latencyMs, boolean successful) {
+        submissionTasksCompleted.incrementAndGet();
+        submissionLatencyTotalMs.addAndGet(latencyMs);
+        if (!successful) submissionTasksFailed.incrementAndGet();
+    }
+
+    void onFlushIntervalScaleChanged(double scale) {
+        flushIntervalScalePercent.set(Math.round(scale * 100));
+    }
+
+    void onSubmissionRetried() {
+        submissionRetries.incrementAndGet();
+    }
+
+    void onSubmissionRetrySucceeded() {
+        submissionRetriesSucceeded.incrementAndGet();
+    }
+
+    void onSubmissionAbandoned() {
+        submissionsAbandoned.incrementAndGet();
+    }
+
+    void onFlushJobStarted() {
+        flushJobRuns.incrementAndGet();
+    }
+
+    void onSnapshotSaveRequested() {
+        snapshotSavesRequested.incrementAndGet();
+    }
+
+    void onSnapshotSaveCoalesced() {
+        snapshotSavesCoalesced.incrementAndGet();
+    }
+
+    void onSnapshotWriteSkipped() {
+        snapshotWritesSkipped.incrementAndGet();
+    }
+
+    void onSnapshotCommitted(long uncompressedBytes, long writtenBytes, long commitMs) {
+        snapshotsCommitted.incrementAndGet();
+        snapshotBytesUncompressed.addAndGet(uncompressedBytes);
+        snapshotBytesWritten.addAndGet(writtenBytes);
+        snapshotCommitTotalMs.addAndGet(commitMs);
+        setMax(snapshotCommitMaxMs, commitMs);
+    }
+
+    private static void setMax(AtomicLong max, long value) {
+        long current = max.get();
+        while ((value > current) && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+}
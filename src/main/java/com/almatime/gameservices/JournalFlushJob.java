@@ -0,0 +1,287 @@
+package com.almatime.gameservices;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import com.almatime.utils.Log;
+import com.google.android.gms.auth.api.signin.GoogleSignIn;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+import com.google.android.gms.games.AchievementsClient;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.EventsClient;
+import com.google.android.gms.games.Games;
+import com.google.android.gms.games.LeaderboardsClient;
+import com.google.android.gms.games.achievement.Achievement;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+import com.google.android.gms.tasks.Continuation;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the work left in the offline journal when network is available, so progress of a player
+ * who doesn't open the game again still reaches the server. Scheduled by {@link GameServices}
+ * whenever the journal isn't empty after a flush or a failed submission.
+ *
+ * If the game is signed in, its clients send the journal. Otherwise clients are created for the
+ * last signed in account; without one the journal waits for the next sign in. Sent work stays in
+ * the journal until server confirms it, work which fails again is released for the next attempt
+ * and the job is rescheduled with backoff. A stopped job sends nothing more: work it claimed but
+ * didn't send yet is released and the job doesn't finish, the system reschedules it.
+ *
+ * Declared in the library manifest, requires API 21.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class JournalFlushJob extends JobService {
+
+    // unique within the app, change if it collides with a job of the game
+    static final int JOB_ID = 0x47534A46;
+
+    private static final long INITIAL_BACKOFF_MS = 30 * 1000;
+
+    // set when the system stops the job, i.e. network is lost
+    private volatile boolean stopped;
+
+    /**
+     * Schedules the job to run once network is available. Replaces the job if it's pending,
+     * does nothing below API 21.
+     */
+    static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return;
+        JobScheduler scheduler =
+                (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, JournalFlushJob.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPersisted(true)
+                .setBackoffCriteria(INITIAL_BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+                .build();
+        try {
+            if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) {
+                Log.w("Journal flush job wasn't scheduled");
+            }
+        } catch (RuntimeException e) {
+            Log.e(e); // i.e. the service isn't declared in the manifest
+        }
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final Context context = getApplicationContext();
+        stopped = false;
+        // the journal file is read on the first use
+        BackgroundExecutor.get().execute(new Runnable() {
+            @Override
+            public void run() {
+                flush(context, params);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopped = true;
+        // work still in flight stays in the journal until its task completes
+        return true;
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void flush(Context context, JobParameters params) {
+        if (stopped) return;
+        GameServices gameServices = GameServices.GetInstance();
+        gameServices.onFlushJobStarted();
+        final OfflineJournal journal = gameServices.journalOf(context);
+        if (journal.isEmpty() || gameServices.replayJournalIfConnected()) {
+            jobFinished(params, false);
+            return;
+        }
+        GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(context);
+        if ((account == null) || !GoogleSignIn.hasPermissions(account, Games.SCOPE_GAMES_LITE)) {
+            jobFinished(params, false); // replayed on the next sign in
+            return;
+        }
+        finishWhenSent(params, send(context, account, journal), journal);
+    }
+
+    /**
+     * Finishes the job once the tasks complete, rescheduled if work is left in the journal.
+     * A stopped job doesn't finish.
+     */
+    void finishWhenSent(final JobParameters params, List<Task<?>> tasks,
+                        final OfflineJournal journal) {
+        Tasks.whenAll(tasks).addOnCompleteListener(BackgroundExecutor.get(),
+                new OnCompleteListener<Void>() {
+            @Override
+            public void onComplete(@NonNull Task<Void> task) {
+                if (stopped) return;
+                jobFinished(params, !journal.isEmpty());
+            }
+        });
+    }
+
+    private List<Task<?>> send(Context context, GoogleSignInAccount account,
+                               OfflineJournal journal) {
+        List<Task<?>> tasks = new ArrayList<Task<?>>();
+        AchievementsClient achievementsClient = Games.getAchievementsClient(context, account);
+        for (String id : claim(journal, OfflineJournal.OP_UNLOCK).keySet()) {
+            tasks.add(completeOnSuccess(achievementsClient.unlockImmediate(id), journal,
+                    OfflineJournal.OP_UNLOCK, Collections.singletonList(id), 1));
+        }
+        tasks.add(sendSteps(achievementsClient, journal));
+        LeaderboardsClient leaderboardsClient = Games.getLeaderboardsClient(context, account);
+        // a score which is the best of several windows is sent once
+        for (Map.Entry<String, Map<Long, List<String>>> leaderboard : OfflineJournal
+                .scoresByLeaderboard(claim(journal, OfflineJournal.OP_SCORE)).entrySet()) {
+            for (Map.Entry<Long, List<String>> score : leaderboard.getValue().entrySet()) {
+                tasks.add(completeOnSuccess(leaderboardsClient.submitScoreImmediate(
+                        leaderboard.getKey(), score.getKey()), journal, OfflineJournal.OP_SCORE,
+                        score.getValue(), score.getKey()));
+            }
+        }
+        EventsClient eventsClient = Games.getEventsClient(context, account);
+        for (Map.Entry<String, Long> entry : claim(journal, OfflineJournal.OP_EVENT).entrySet()) {
+            long count = entry.getValue();
+            while (count > 0) {
+                int steps = (int) Math.min(count, Integer.MAX_VALUE);
+                eventsClient.increment(entry.getKey(), steps);
+                count -= steps;
+            }
+            // increments of events have no result
+            journal.complete(OfflineJournal.OP_EVENT, entry.getKey(), entry.getValue());
+        }
+        return tasks;
+    }
+
+    /**
+     * Turns the journaled increments into steps on top of the steps loaded from server, then
+     * sets the steps pending in the journal.
+     */
+    private Task<Void> sendSteps(final AchievementsClient client, final OfflineJournal journal) {
+        final Map<String, Long> increments = claim(journal, OfflineJournal.OP_INCREMENT);
+        if (increments.isEmpty()) {
+            return setSteps(client, journal);
+        }
+        // from server, cached steps may miss progress made on another device
+        return client.load(true).continueWithTask(BackgroundExecutor.get(),
+                new Continuation<AnnotatedData<AchievementBuffer>, Task<Void>>() {
+            @Override
+            public Task<Void> then(@NonNull Task<AnnotatedData<AchievementBuffer>> task) {
+                if (releaseIfStopped(journal, OfflineJournal.OP_INCREMENT, increments)) {
+                    return Tasks.<Void>forResult(null);
+                }
+                AchievementBuffer buffer = task.isSuccessful() ? task.getResult().get() : null;
+                if (buffer == null) {
+                    for (Map.Entry<String, Long> entry : increments.entrySet()) {
+                        journal.release(OfflineJournal.OP_INCREMENT, entry.getKey(),
+                                entry.getValue());
+                    }
+                    return setSteps(client, journal);
+                }
+                try {
+                    for (Achievement achievement : buffer) {
+                        Long incNum = increments.remove(achievement.getAchievementId());
+                        if (incNum == null) continue;
+                        if ((achievement.getType() == Achievement.TYPE_INCREMENTAL)
+                                && (achievement.getState() != Achievement.STATE_UNLOCKED)) {
+                            journal.incrementToSteps(achievement.getAchievementId(), incNum,
+                                    achievement.getCurrentSteps());
+                        } else {
+                            journal.complete(OfflineJournal.OP_INCREMENT,
+                                    achievement.getAchievementId(), incNum);
+                        }
+                    }
+                } finally {
+                    buffer.release();
+                }
+                // not an achievement of the game
+                for (Map.Entry<String, Long> entry : increments.entrySet()) {
+                    Log.w("Increment of " + entry.getKey() + " abandoned: unknown achievement");
+                    journal.complete(OfflineJournal.OP_INCREMENT, entry.getKey(),
+                            entry.getValue());
+                }
+                return setSteps(client, journal);
+            }
+        });
+    }
+
+    private Task<Void> setSteps(AchievementsClient client, OfflineJournal journal) {
+        List<Task<?>> tasks = new ArrayList<Task<?>>();
+        for (Map.Entry<String, Long> entry : claim(journal, OfflineJournal.OP_STEPS).entrySet()) {
+            tasks.add(completeOnSuccess(client.setStepsImmediate(entry.getKey(),
+                    (int) Math.min(entry.getValue(), Integer.MAX_VALUE)), journal,
+                    OfflineJournal.OP_STEPS, Collections.singletonList(entry.getKey()),
+                    entry.getValue()));
+        }
+        return Tasks.whenAll(tasks);
+    }
+
+    /**
+     * Claims the pending work of the operation, nothing once the job is stopped.
+     */
+    private Map<String, Long> claim(OfflineJournal journal, byte op) {
+        Map<String, Long> claimed = journal.claim(op);
+        return releaseIfStopped(journal, op, claimed)
+                ? Collections.<String, Long>emptyMap() : claimed;
+    }
+
+    /**
+     * Returns the claimed work to the journal if the job is stopped, the rescheduled job sends
+     * it.
+     *
+     * @return true if the work was released.
+     */
+    boolean releaseIfStopped(OfflineJournal journal, byte op, Map<String, Long> claimed) {
+        if (!stopped) return false;
+        for (Map.Entry<String, Long> entry : claimed.entrySet()) {
+            journal.release(op, entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Removes the claimed work from the journal once the task succeeds, or fails for good.
+     * Otherwise releases it for the next attempt.
+     *
+     * @param ids journal ids the task sends the value of.
+     */
+    static <T> Task<T> completeOnSuccess(Task<T> task, final OfflineJournal journal,
+                                                 final byte op, final List<String> ids,
+                                                 final long value) {
+        return task.addOnCompleteListener(BackgroundExecutor.get(), new OnCompleteListener<T>() {
+            @Override
+            public void onComplete(@NonNull Task<T> completedTask) {
+                Exception e = completedTask.isSuccessful() ? null : completedTask.getException();
+                boolean retry = !completedTask.isSuccessful() && RetryScheduler.isRetryable(e);
+                if (!completedTask.isSuccessful() && !retry) {
+                    Log.w("Submission of " + ids + " abandoned: " + e);
+                }
+                for (String id : ids) {
+                    if (retry) {
+                        journal.release(op, id, value);
+                    } else {
+                        journal.complete(op, id, value);
+                    }
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.almatime.gameservices;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.almatime.gameservices.data.LeaderboardMetadata;
+import com.almatime.utils.Log;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.LeaderboardsClient;
+import com.google.android.gms.games.leaderboard.Leaderboard;
+import com.google.android.gms.games.leaderboard.LeaderboardBuffer;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metadata of all leaderboards of the game, loaded in one request and kept in a file, so names,
+ * icons and score orders are served synchronously on later launches before the network answers.
+ * Reloaded in background when older than TTL.
+ *
+ * Thread safe, reads don't lock.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class LeaderboardMetadataCache {
+
+    static final String FILE_NAME = "gameservices_leaderboards.bin";
+
+    private static final int FILE_VERSION = 1;
+
+    // leaderboardId -> metadata, replaced as a whole on reload
+    private volatile Map<String, LeaderboardMetadata> metadata =
+            Collections.<String, LeaderboardMetadata>emptyMap();
+    // wall clock time of the last load, survives process death
+    private volatile long loadedAtMs;
+    private volatile long ttlMs;
+
+    private final File file;
+    private boolean loading;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            write();
+        }
+    };
+
+    LeaderboardMetadataCache(File file, long ttlMs) {
+        this.file = file;
+        this.ttlMs = ttlMs;
+        read();
+    }
+
+    void setTtl(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * @return metadata of the leaderboard or null if it isn't loaded yet.
+     */
+    LeaderboardMetadata get(String leaderboardId) {
+        return metadata.get(leaderboardId);
+    }
+
+    /**
+     * @return leaderboardId -> metadata of all leaderboards, empty if not loaded yet.
+     */
+    Map<String, LeaderboardMetadata> getAll() {
+        return metadata;
+    }
+
+    boolean isStale() {
+        return metadata.isEmpty() || (System.currentTimeMillis() - loadedAtMs > ttlMs);
+    }
+
+    /**
+     * Reloads the metadata in background if it's older than TTL. Only one load runs at a time.
+     */
+    void refreshIfStale(LeaderboardsClient client) {
+        if ((client == null) || !isStale()) return;
+        synchronized (this) {
+            if (loading) return;
+            loading = true;
+        }
+        // the first load may be served by Play Games cache, later ones are past TTL
+        boolean forceReload = !metadata.isEmpty();
+        client.loadLeaderboardMetadata(forceReload).addOnCompleteListener(
+                new OnCompleteListener<AnnotatedData<LeaderboardBuffer>>() {
+            @Override
+            public void onComplete(@NonNull Task<AnnotatedData<LeaderboardBuffer>> task) {
+                synchronized (LeaderboardMetadataCache.this) {
+                    loading = false;
+                }
+                if (!task.isSuccessful()) {
+                    Log.w("Leaderboard metadata load failed: " + task.getException());
+                    return;
+                }
+                LeaderboardBuffer buffer = task.getResult().get();
+                if (buffer == null) return;
+                try {
+                    metadata = toMetadata(buffer);
+                } finally {
+                    buffer.release();
+                }
+                loadedAtMs = System.currentTimeMillis();
+                BackgroundExecutor.get().execute(writeTask);
+            }
+        });
+    }
+
+    private static Map<String, LeaderboardMetadata> toMetadata(LeaderboardBuffer buffer) {
+        Map<String, LeaderboardMetadata> loaded = new LinkedHashMap<String, LeaderboardMetadata>();
+        for (Leaderboard leaderboard : buffer) {
+            LeaderboardMetadata entry = new LeaderboardMetadata();
+            entry.setLeaderboardId(leaderboard.getLeaderboardId());
+            entry.setDisplayName(leaderboard.getDisplayName());
+            Uri iconUri = leaderboard.getIconImageUri();
+            entry.setIconImageUri((iconUri != null) ? iconUri.toString() : null);
+            entry.setScoreOrder(leaderboard.getScoreOrder());
+            loaded.put(entry.getLeaderboardId(), entry);
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void write() {
+        Map<String, LeaderboardMetadata> snapshot = metadata;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(FILE_VERSION);
+            out.writeLong(loadedAtMs);
+            out.writeInt(snapshot.size());
+            for (LeaderboardMetadata entry : snapshot.values()) {
+                out.writeUTF(entry.getLeaderboardId());
+                out.writeUTF((entry.getDisplayName() != null) ? entry.getDisplayName() : "");
+                out.writeUTF((entry.getIconImageUri() != null) ? entry.getIconImageUri() : "");
+                out.writeByte(entry.getScoreOrder());
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            FileOutputStream fileOut = new FileOutputStream(tmp);
+            try {
+                bytes.writeTo(fileOut);
+                fileOut.getFD().sync();
+            } finally {
+                fileOut.close();
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w("Can't replace leaderboard metadata " + file);
+            }
+        } catch (IOException e) {
+            Log.e(e);
+        }
+    }
+
+    private void read() {
+        if (!file.exists()) return;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FILE_VERSION) return;
+            long storedAtMs = in.readLong();
+            int count = in.readInt();
+            Map<String, LeaderboardMetadata> stored =
+                    new LinkedHashMap<String, LeaderboardMetadata>();
+            for (int i = 0; i < count; i++) {
+                LeaderboardMetadata entry = new LeaderboardMetadata();
+                entry.setLeaderboardId(in.readUTF());
+                entry.setDisplayName(in.readUTF());
+                String iconUri = in.readUTF();
+                entry.setIconImageUri(iconUri.isEmpty() ? null : iconUri);
+                entry.setScoreOrder(in.readByte());
+                stored.put(entry.getLeaderboardId(), entry);
+            }
+            metadata = Collections.unmodifiableMap(stored);
+            loadedAtMs = storedAtMs;
+        } catch (IOException e) {
+            Log.e(e); // the file is replaced as a whole, a partial read means corruption
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.e(e);
+                }
+            }
+        }
+    }
+
+}
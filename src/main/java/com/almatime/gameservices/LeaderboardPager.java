@@ -0,0 +1,252 @@
+package com.almatime.gameservices;
+
+import android.support.annotation.NonNull;
+
+import com.almatime.gameservices.data.LeaderboardUserScore;
+import com.almatime.utils.Log;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.LeaderboardsClient;
+import com.google.android.gms.games.PageDirection;
+import com.google.android.gms.games.leaderboard.LeaderboardScoreBuffer;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Pages through top scores or player centered scores of a leaderboard. Obtain it with
+ * {@link GameServices#openLeaderboardPager(String, int, boolean, int, PageListener)}.
+ *
+ * Each {@link #loadNextPage()} delivers a page and prefetches the next one in background, so
+ * scrolling doesn't wait for a request. Entries are mapped into {@link LeaderboardUserScore}
+ * records and only the last pages are kept mapped. The Play services buffer holds every entry
+ * loaded so far and can't be restarted at an offset, so a pager loads up to
+ * {@link #MAX_LOADED_ENTRIES} entries; the buffer is released when paging ends or on
+ * {@link #close()}.
+ *
+ * Thread safe. Callbacks arrive through the executor set with
+ * {@link GameServices#setCallbackExecutor(Executor)}, on the main thread by default.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class LeaderboardPager {
+
+    // max number of entries Play services return per request
+    public static final int MAX_PAGE_SIZE = 25;
+
+    // max number of entries loaded by a pager, bounds the Play services buffer
+    public static final int MAX_LOADED_ENTRIES = 250;
+
+    // default number of mapped pages kept in memory
+    private static final int DEFAULT_WINDOW_PAGES = 8;
+
+    public interface PageListener {
+
+        void onPageLoaded(LeaderboardPager pager, int pageIndex, List<LeaderboardUserScore> page);
+
+        void onPageLoadFailed(LeaderboardPager pager, Exception e);
+    }
+
+    private final LeaderboardsClient leaderboardsClient;
+    private final String leaderboardId;
+    private final int timeSpan;
+    private final int collection;
+    private final boolean playerCentered;
+    private final int pageSize;
+    private final PageListener listener;
+    private final Executor listenerExecutor;
+    private final int windowPages;
+
+    // guarded by this
+    // last pages mapped, the eldest is dropped when the window is full
+    private final LinkedHashMap<Integer, List<LeaderboardUserScore>> window;
+
+    // Play services buffer of all loaded entries, needed to load more
+    private LeaderboardScoreBuffer scoreBuffer;
+    // number of buffer entries already mapped into pages
+    private int mappedEntries;
+
+    private List<LeaderboardUserScore> prefetchedPage;
+    private boolean loading;
+    private boolean deliverWhenLoaded;
+    private boolean hasMore = true;
+    private boolean closed;
+    private int nextPageIndex;
+
+    LeaderboardPager(LeaderboardsClient leaderboardsClient, String leaderboardId, int timeSpan,
+                     int collection, boolean playerCentered, int pageSize, PageListener listener,
+                     Executor listenerExecutor) {
+        this.leaderboardsClient = leaderboardsClient;
+        this.leaderboardId = leaderboardId;
+        this.timeSpan = timeSpan;
+        this.collection = collection;
+        this.playerCentered = playerCentered;
+        this.pageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        this.listener = listener;
+        this.listenerExecutor = listenerExecutor;
+        this.windowPages = DEFAULT_WINDOW_PAGES;
+        window = new LinkedHashMap<Integer, List<LeaderboardUserScore>>(windowPages + 1, 1f) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<LeaderboardUserScore>> eldest) {
+                return size() > windowPages;
+            }
+        };
+    }
+
+    public String getLeaderboardId() {
+        return leaderboardId;
+    }
+
+    /**
+     * @return false when the end of the leaderboard is reached.
+     */
+    public synchronized boolean hasMore() {
+        return hasMore || (prefetchedPage != null);
+    }
+
+    /**
+     * Delivers the next page to the listener: at once if it's prefetched, otherwise when it's
+     * loaded. Then prefetches the page after it.
+     */
+    public synchronized void loadNextPage() {
+        if (closed) return;
+        if (prefetchedPage != null) {
+            deliverPrefetched();
+        } else if (loading) {
+            deliverWhenLoaded = true;
+        } else if (hasMore) {
+            deliverWhenLoaded = true;
+            requestPage();
+        }
+    }
+
+    /**
+     * @return a page still kept in memory, null if it was dropped or isn't loaded yet.
+     */
+    public synchronized List<LeaderboardUserScore> getPage(int pageIndex) {
+        return window.get(pageIndex);
+    }
+
+    /**
+     * Releases loaded data. The pager can't be used after it.
+     */
+    public synchronized void close() {
+        closed = true;
+        window.clear();
+        prefetchedPage = null;
+        if (scoreBuffer != null) {
+            scoreBuffer.release();
+            scoreBuffer = null;
+        }
+    }
+
+    private void deliverPrefetched() {
+        List<LeaderboardUserScore> page = prefetchedPage;
+        prefetchedPage = null;
+        int pageIndex = nextPageIndex++;
+        window.put(pageIndex, page);
+        notifyPageLoaded(pageIndex, page);
+        if (!closed && hasMore && !loading) {
+            requestPage();
+        }
+    }
+
+    private void requestPage() {
+        loading = true;
+        Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> task;
+        if (scoreBuffer == null) {
+            task = playerCentered
+                    ? leaderboardsClient.loadPlayerCenteredScores(leaderboardId, timeSpan,
+                            collection, pageSize)
+                    : leaderboardsClient.loadTopScores(leaderboardId, timeSpan, collection,
+                            pageSize);
+        } else {
+            task = leaderboardsClient.loadMoreScores(scoreBuffer,
+                    Math.min(pageSize, MAX_LOADED_ENTRIES - mappedEntries), PageDirection.NEXT);
+        }
+        task.addOnCompleteListener(
+                new OnCompleteListener<AnnotatedData<LeaderboardsClient.LeaderboardScores>>() {
+            @Override
+            public void onComplete(
+                    @NonNull Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> task) {
+                synchronized (LeaderboardPager.this) {
+                    loading = false;
+                    if (!task.isSuccessful()) {
+                        Log.w("Failed to load scores of " + leaderboardId + ": "
+                                + task.getException());
+                        if (!closed) {
+                            deliverWhenLoaded = false;
+                            notifyPageLoadFailed(task.getException());
+                        }
+                        return;
+                    }
+                    LeaderboardsClient.LeaderboardScores scores = task.getResult().get();
+                    if (closed) {
+                        scores.release();
+                        return;
+                    }
+                    onScoresLoaded(scores.getScores());
+                }
+            }
+        });
+    }
+
+    private void notifyPageLoaded(final int pageIndex, final List<LeaderboardUserScore> page) {
+        listenerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onPageLoaded(LeaderboardPager.this, pageIndex, page);
+            }
+        });
+    }
+
+    private void notifyPageLoadFailed(final Exception e) {
+        listenerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onPageLoadFailed(LeaderboardPager.this, e);
+            }
+        });
+    }
+
+    /**
+     * A buffer of loaded more scores is an extension of the previous one, it contains the entries
+     * already mapped followed by the new page.
+     */
+    private void onScoresLoaded(LeaderboardScoreBuffer buffer) {
+        if ((scoreBuffer != null) && (scoreBuffer != buffer)) {
+            scoreBuffer.release();
+        }
+        scoreBuffer = buffer;
+
+        int count = buffer.getCount();
+        List<LeaderboardUserScore> page = new ArrayList<LeaderboardUserScore>(
+                Math.max(0, count - mappedEntries));
+        for (int i = mappedEntries; i < count; i++) {
+            page.add(GameServices.toUserScore(buffer.get(i)));
+        }
+        mappedEntries = Math.max(mappedEntries, count);
+        hasMore = (page.size() >= pageSize) && (mappedEntries < MAX_LOADED_ENTRIES);
+        if (!hasMore) {
+            // all entries are mapped, the buffer is only needed to load more
+            scoreBuffer.release();
+            scoreBuffer = null;
+        }
+
+        if (page.isEmpty()) {
+            deliverWhenLoaded = false;
+            return;
+        }
+        prefetchedPage = page;
+        if (deliverWhenLoaded) {
+            deliverWhenLoaded = false;
+            deliverPrefetched();
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.almatime.gameservices;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.almatime.gameservices.data.LeaderboardUserScore;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.leaderboard.LeaderboardScore;
+import com.google.android.gms.tasks.Continuation;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Caches current player scores keyed by (leaderboardId, timeSpan, collection).
+ *
+ * A score younger than TTL is fresh and is served without a request. An older score is still
+ * served during the stale-while-revalidate window while a single background reload refreshes it.
+ * Concurrent loads of the same key share one in-flight {@link Task}.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class LeaderboardScoreCache {
+
+    interface Loader {
+
+        /**
+         * @return task of the load request, or null if the leaderboards client isn't connected.
+         */
+        Task<AnnotatedData<LeaderboardScore>> load(String leaderboardId, int timeSpan,
+                                                   int collection);
+    }
+
+    private static class Entry {
+        LeaderboardUserScore score;
+        long loadedAtMs;
+        Task<LeaderboardUserScore> inFlight;
+    }
+
+    private final Loader loader;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private long ttlMs;
+    private long staleWhileRevalidateMs;
+    // incremented on clear(), loads started before it don't fill the cache
+    private int generation;
+
+    LeaderboardScoreCache(Loader loader, long ttlMs, long staleWhileRevalidateMs) {
+        this.loader = loader;
+        this.ttlMs = ttlMs;
+        this.staleWhileRevalidateMs = staleWhileRevalidateMs;
+    }
+
+    synchronized void setTtl(long ttlMs, long staleWhileRevalidateMs) {
+        this.ttlMs = ttlMs;
+        this.staleWhileRevalidateMs = staleWhileRevalidateMs;
+    }
+
+    /**
+     * @return fresh or stale-while-revalidate cached score, null if there's none. A stale score
+     * triggers a background reload.
+     */
+    synchronized LeaderboardUserScore getCached(String leaderboardId, int timeSpan, int collection) {
+        Entry entry = entries.get(keyOf(leaderboardId, timeSpan, collection));
+        if ((entry == null) || (entry.score == null)) return null;
+
+        long ageMs = SystemClock.elapsedRealtime() - entry.loadedAtMs;
+        if (ageMs <= ttlMs) {
+            return entry.score;
+        }
+        if (ageMs <= ttlMs + staleWhileRevalidateMs) {
+            load(leaderboardId, timeSpan, collection);
+            return entry.score;
+        }
+        return null;
+    }
+
+    /**
+     * Loads the score from server, joining a load of the same key already in flight.
+     *
+     * @return task resulting with the score, or null if the client isn't connected. The result is
+     * null when the player has no score on the leaderboard.
+     */
+    synchronized Task<LeaderboardUserScore> load(String leaderboardId, int timeSpan,
+                                                 int collection) {
+        final String key = keyOf(leaderboardId, timeSpan, collection);
+        Entry entry = entries.get(key);
+        if ((entry != null) && (entry.inFlight != null)) {
+            return entry.inFlight;
+        }
+        Task<AnnotatedData<LeaderboardScore>> request = loader.load(leaderboardId, timeSpan,
+                collection);
+        if (request == null) return null;
+
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        final Entry loadingEntry = entry;
+        final int loadGeneration = generation;
+        Task<LeaderboardUserScore> inFlight = request.continueWith(
+                new Continuation<AnnotatedData<LeaderboardScore>, LeaderboardUserScore>() {
+            @Override
+            public LeaderboardUserScore then(@NonNull Task<AnnotatedData<LeaderboardScore>> task)
+                    throws Exception {
+                LeaderboardScore scoreResult = task.getResult().get();
+                LeaderboardUserScore userScore = (scoreResult != null)
+                        ? GameServices.toUserScore(scoreResult) : null;
+                synchronized (LeaderboardScoreCache.this) {
+                    if (loadGeneration == generation) {
+                        loadingEntry.score = userScore;
+                        loadingEntry.loadedAtMs = SystemClock.elapsedRealtime();
+                    }
+                }
+                return userScore;
+            }
+        });
+        loadingEntry.inFlight = inFlight;
+        inFlight.addOnCompleteListener(new OnCompleteListener<LeaderboardUserScore>() {
+            @Override
+            public void onComplete(@NonNull Task<LeaderboardUserScore> task) {
+                synchronized (LeaderboardScoreCache.this) {
+                    loadingEntry.inFlight = null;
+                }
+            }
+        });
+        return inFlight;
+    }
+
+    /**
+     * Drops cached scores of the leaderboard, i.e. after a new score was submitted.
+     */
+    synchronized void invalidate(String leaderboardId) {
+        String prefix = leaderboardId + "/";
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().score = null;
+            }
+        }
+    }
+
+    /**
+     * Drops all cached scores, i.e. on sign out.
+     */
+    synchronized void clear() {
+        entries.clear();
+        generation++;
+    }
+
+    private static String keyOf(String leaderboardId, int timeSpan, int collection) {
+        return leaderboardId + "/" + timeSpan + "/" + collection;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.almatime.gameservices;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.almatime.gameservices.data.LeaderboardScoresResult;
+import com.almatime.gameservices.data.LeaderboardUserScore;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+/**
+ * Loads current player scores of several leaderboards through {@link LeaderboardScoreCache},
+ * running at most maxParallel requests at a time, and delivers all of them in one
+ * {@link LeaderboardScoresResult}.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class LeaderboardScoresFanOut {
+
+    interface Callback {
+
+        void onComplete(LeaderboardScoresResult result);
+    }
+
+    private final LeaderboardScoreCache scoreCache;
+    private final String[] leaderboardIds;
+    private final int timeSpan;
+    private final int collection;
+    private final int maxParallel;
+    private final Callback callback;
+
+    private final LeaderboardScoresResult result = new LeaderboardScoresResult();
+    private final long startMs = SystemClock.elapsedRealtime();
+    // index of the next leaderboard to load, guarded by this
+    private int nextIndex;
+    private int completed;
+
+    LeaderboardScoresFanOut(LeaderboardScoreCache scoreCache, String[] leaderboardIds,
+                            int timeSpan, int collection, int maxParallel, Callback callback) {
+        this.scoreCache = scoreCache;
+        this.leaderboardIds = leaderboardIds;
+        this.timeSpan = timeSpan;
+        this.collection = collection;
+        this.maxParallel = Math.max(1, maxParallel);
+        this.callback = callback;
+    }
+
+    void start() {
+        if (leaderboardIds.length == 0) {
+            callback.onComplete(result);
+            return;
+        }
+        int initial = Math.min(maxParallel, leaderboardIds.length);
+        for (int i = 0; i < initial; i++) {
+            loadNext();
+        }
+    }
+
+    private void loadNext() {
+        final String leaderboardId;
+        synchronized (this) {
+            if (nextIndex >= leaderboardIds.length) return;
+            leaderboardId = leaderboardIds[nextIndex++];
+        }
+        final long loadStartMs = SystemClock.elapsedRealtime();
+        LeaderboardUserScore cachedScore = scoreCache.getCached(leaderboardId, timeSpan, collection);
+        if (cachedScore != null) {
+            onLoaded(leaderboardId, cachedScore, null, 0);
+            return;
+        }
+        Task<LeaderboardUserScore> task = scoreCache.load(leaderboardId, timeSpan, collection);
+        if (task == null) {
+            onLoaded(leaderboardId, null, new IllegalStateException(
+                    "Leaderboards client isn't connected"), 0);
+            return;
+        }
+        task.addOnCompleteListener(new OnCompleteListener<LeaderboardUserScore>() {
+            @Override
+            public void onComplete(@NonNull Task<LeaderboardUserScore> task) {
+                long loadTimeMs = SystemClock.elapsedRealtime() - loadStartMs;
+                if (task.isSuccessful()) {
+                    onLoaded(leaderboardId, task.getResult(), null, loadTimeMs);
+                } else {
+                    onLoaded(leaderboardId, null, task.getException(), loadTimeMs);
+                }
+            }
+        });
+    }
+
+    private void onLoaded(String leaderboardId, LeaderboardUserScore userScore, Exception e,
+                          long loadTimeMs) {
+        boolean done;
+        synchronized (this) {
+            if (e != null) {
+                result.putFailure(leaderboardId, e, loadTimeMs);
+            } else {
+                result.putScore(leaderboardId, userScore, loadTimeMs);
+            }
+            done = ++completed == leaderboardIds.length;
+            if (done) {
+                result.setTotalTimeMs(SystemClock.elapsedRealtime() - startMs);
+            }
+        }
+        if (done) {
+            callback.onComplete(result);
+        } else {
+            loadNext();
+        }
+    }
+
+}
@@ -0,0 +1,313 @@
+package com.almatime.gameservices;
+
+import com.almatime.utils.Log;
+import com.google.android.gms.games.leaderboard.LeaderboardVariant;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local best scores of the player per leaderboard in the daily, weekly and all time windows.
+ * Window boundaries are worked out locally the same way as on the server: days start at midnight
+ * UTC-7 and weeks start on Sunday, so a score is known to be a new daily or weekly best without
+ * a request, also offline across a reset.
+ *
+ * Bests are raised by the scores submitted on this device and by the bests known by the server,
+ * so a score which can't improve any window is dropped before the request.
+ *
+ * Scores are compared in the score order of the leaderboard. Scores of a leaderboard whose order
+ * isn't known aren't recorded and never filtered. Kept in a file, written on the
+ * {@link BackgroundExecutor} thread.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class LocalBestScores {
+
+    static final String FILE_NAME = "gameservices_best_scores.bin";
+
+    // bits of offer(..) result, bit index is the LeaderboardVariant time span
+    static final int IMPROVED_DAILY = 1 << LeaderboardVariant.TIME_SPAN_DAILY;
+    static final int IMPROVED_WEEKLY = 1 << LeaderboardVariant.TIME_SPAN_WEEKLY;
+    static final int IMPROVED_ALL_TIME = 1 << LeaderboardVariant.TIME_SPAN_ALL_TIME;
+    static final int IMPROVED_ALL = IMPROVED_DAILY | IMPROVED_WEEKLY | IMPROVED_ALL_TIME;
+
+    private static final int FILE_VERSION = 2;
+
+    // server resets daily and weekly leaderboards at midnight UTC-7
+    private static final long RESET_OFFSET_MS = TimeUnit.HOURS.toMillis(-7);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    // day 0, 1 Jan 1970, is Thursday, weeks start 3 days later on Sunday
+    private static final int WEEK_START_SHIFT_DAYS = 4;
+
+    private static final long WRITE_WINDOW_MS = 500;
+
+    private static final long NO_SCORE = Long.MIN_VALUE;
+
+    private static class Best {
+        final int scoreOrder;
+        long day;
+        long daily = NO_SCORE;
+        long week;
+        long weekly = NO_SCORE;
+        long allTime = NO_SCORE;
+
+        Best(int scoreOrder) {
+            this.scoreOrder = scoreOrder;
+        }
+
+        /**
+         * @return true if the score beats the other one, any score beats NO_SCORE.
+         */
+        boolean isBetter(long score, long other) {
+            return (other == NO_SCORE) || ScoreOrders.isBetter(scoreOrder, score, other);
+        }
+    }
+
+    private final File file;
+    private final Map<String, Best> bests = new HashMap<String, Best>();
+    // id of the player the scores belong to
+    private String accountId;
+    private boolean writeScheduled;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            write();
+        }
+    };
+
+    LocalBestScores(File file) {
+        this.file = file;
+        load();
+    }
+
+    static long dayOf(long timeMs) {
+        return floorDiv(timeMs + RESET_OFFSET_MS, DAY_MS);
+    }
+
+    static long weekOf(long timeMs) {
+        return floorDiv(dayOf(timeMs) + WEEK_START_SHIFT_DAYS, 7);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return ((x % y != 0) && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    /**
+     * Forgets the scores if they belong to another player.
+     */
+    synchronized void bindAccount(String accountId) {
+        if (accountId == null) return;
+        if ((this.accountId != null) && !this.accountId.equals(accountId)) {
+            bests.clear();
+        }
+        if (!accountId.equals(this.accountId)) {
+            this.accountId = accountId;
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Records the score.
+     *
+     * @param scoreOrder Leaderboard score order, an unknown one records nothing.
+     * @return bits of the windows the score improves, 0 if it can't change any of them.
+     * {@link #IMPROVED_ALL} if the score order is unknown.
+     */
+    synchronized int offer(String leaderboardId, long score, int scoreOrder, long nowMs) {
+        if (!ScoreOrders.isKnown(scoreOrder)) return IMPROVED_ALL;
+        Best best = bestOf(leaderboardId, scoreOrder);
+        long day = dayOf(nowMs);
+        long week = weekOf(nowMs);
+        int improved = 0;
+        if ((best.day != day) || best.isBetter(score, best.daily)) {
+            best.day = day;
+            best.daily = score;
+            improved |= IMPROVED_DAILY;
+        }
+        if ((best.week != week) || best.isBetter(score, best.weekly)) {
+            best.week = week;
+            best.weekly = score;
+            improved |= IMPROVED_WEEKLY;
+        }
+        if (best.isBetter(score, best.allTime)) {
+            best.allTime = score;
+            improved |= IMPROVED_ALL_TIME;
+        }
+        if (improved != 0) scheduleWrite();
+        return improved;
+    }
+
+    /**
+     * Raises the best of the current window to the best known by the server. A daily best is
+     * a lower bound of the weekly and all time bests, and a weekly one of the all time best.
+     *
+     * @param timeSpan one of LeaderboardVariant time spans.
+     * @param scoreOrder Leaderboard score order, an unknown one seeds nothing.
+     */
+    synchronized void seed(String leaderboardId, int timeSpan, long score, int scoreOrder,
+                           long nowMs) {
+        if (!ScoreOrders.isKnown(scoreOrder)) return;
+        Best best = bestOf(leaderboardId, scoreOrder);
+        boolean changed = false;
+        if (timeSpan == LeaderboardVariant.TIME_SPAN_DAILY) {
+            long day = dayOf(nowMs);
+            if ((best.day != day) || best.isBetter(score, best.daily)) {
+                best.day = day;
+                best.daily = score;
+                changed = true;
+            }
+        }
+        if (timeSpan <= LeaderboardVariant.TIME_SPAN_WEEKLY) {
+            long week = weekOf(nowMs);
+            if ((best.week != week) || best.isBetter(score, best.weekly)) {
+                best.week = week;
+                best.weekly = score;
+                changed = true;
+            }
+        }
+        if (best.isBetter(score, best.allTime)) {
+            best.allTime = score;
+            changed = true;
+        }
+        if (changed) scheduleWrite();
+    }
+
+    /**
+     * @return bests of the leaderboard, restarted if they were recorded in another order.
+     */
+    private Best bestOf(String leaderboardId, int scoreOrder) {
+        Best best = bests.get(leaderboardId);
+        if ((best == null) || (best.scoreOrder != scoreOrder)) {
+            best = new Best(scoreOrder);
+            bests.put(leaderboardId, best);
+        }
+        return best;
+    }
+
+    /**
+     * @param timeSpan one of LeaderboardVariant time spans.
+     * @return best score of the current window or defaultScore if there is none.
+     */
+    synchronized long getBest(String leaderboardId, int timeSpan, long nowMs, long defaultScore) {
+        Best best = bests.get(leaderboardId);
+        if (best == null) return defaultScore;
+        long score;
+        switch (timeSpan) {
+            case LeaderboardVariant.TIME_SPAN_DAILY:
+                score = (best.day == dayOf(nowMs)) ? best.daily : NO_SCORE;
+                break;
+            case LeaderboardVariant.TIME_SPAN_WEEKLY:
+                score = (best.week == weekOf(nowMs)) ? best.weekly : NO_SCORE;
+                break;
+            default:
+                score = best.allTime;
+                break;
+        }
+        return (score != NO_SCORE) ? score : defaultScore;
+    }
+
+    /**
+     * @return true if the score beats the best of the current window, or the score order
+     * is unknown.
+     */
+    synchronized boolean isNewBest(String leaderboardId, long score, int timeSpan, int scoreOrder,
+                                   long nowMs) {
+        if (!ScoreOrders.isKnown(scoreOrder)) return true;
+        Best best = bests.get(leaderboardId);
+        if ((best == null) || (best.scoreOrder != scoreOrder)) return true;
+        return best.isBetter(score, getBest(leaderboardId, timeSpan, nowMs, NO_SCORE));
+    }
+
+    private void scheduleWrite() {
+        if (writeScheduled) return;
+        writeScheduled = true;
+        BackgroundExecutor.get().schedule(writeTask, WRITE_WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void write() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            synchronized (this) {
+                writeScheduled = false;
+                out.writeInt(FILE_VERSION);
+                out.writeUTF((accountId != null) ? accountId : "");
+                out.writeInt(bests.size());
+                for (Map.Entry<String, Best> entry : bests.entrySet()) {
+                    Best best = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeByte(best.scoreOrder);
+                    out.writeLong(best.day);
+                    out.writeLong(best.daily);
+                    out.writeLong(best.week);
+                    out.writeLong(best.weekly);
+                    out.writeLong(best.allTime);
+                }
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            FileOutputStream fileOut = new FileOutputStream(tmp);
+            try {
+                bytes.writeTo(fileOut);
+                fileOut.getFD().sync();
+            } finally {
+                fileOut.close();
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w("Can't replace best scores " + file);
+            }
+        } catch (IOException e) {
+            Log.e(e);
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FILE_VERSION) return;
+            String storedAccountId = in.readUTF();
+            accountId = storedAccountId.isEmpty() ? null : storedAccountId;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String leaderboardId = in.readUTF();
+                Best best = new Best(in.readByte());
+                best.day = in.readLong();
+                best.daily = in.readLong();
+                best.week = in.readLong();
+                best.weekly = in.readLong();
+                best.allTime = in.readLong();
+                bests.put(leaderboardId, best);
+            }
+        } catch (IOException e) {
+            Log.e(e);
+            bests.clear(); // the file is replaced as a whole, a partial read means corruption
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.e(e);
+                }
+            }
+        }
+    }
+
+}
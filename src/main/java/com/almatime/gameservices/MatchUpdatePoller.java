@@ -0,0 +1,234 @@
+package com.almatime.gameservices;
+
+import android.support.annotation.NonNull;
+
+import com.almatime.utils.Log;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.TurnBasedMultiplayerClient;
+import com.google.android.gms.games.multiplayer.turnbased.LoadMatchesResponse;
+import com.google.android.gms.games.multiplayer.turnbased.TurnBasedMatch;
+import com.google.android.gms.games.multiplayer.turnbased.TurnBasedMatchBuffer;
+import com.google.android.gms.games.multiplayer.turnbased.TurnBasedMatchUpdateCallback;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects turn based match updates pushed by the server and polled in background, and delivers
+ * all updates collected until the delivery runs in one {@link Listener} call. With
+ * {@link com.almatime.utils.FrameCallbackExecutor} as the delivery executor that's one call per
+ * frame. Only matches whose version changed since the last delivery are delivered.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class MatchUpdatePoller {
+
+    interface Listener {
+
+        /**
+         * @param updated frozen matches, the latest version of each.
+         * @param removedMatchIds matches removed from the player's list.
+         */
+        void onMatchesUpdated(List<TurnBasedMatch> updated, List<String> removedMatchIds);
+    }
+
+    interface DeliveryExecutor {
+
+        /**
+         * @return executor of the listener call.
+         */
+        Executor get();
+    }
+
+    private static final int[] POLLED_STATUSES = {
+            TurnBasedMatch.MATCH_TURN_STATUS_MY_TURN,
+            TurnBasedMatch.MATCH_TURN_STATUS_THEIR_TURN,
+            TurnBasedMatch.MATCH_TURN_STATUS_COMPLETE
+    };
+
+    private final DeliveryExecutor deliveryExecutor;
+    private volatile Listener listener;
+    private volatile long pollIntervalMs;
+
+    // guarded by this
+    private TurnBasedMultiplayerClient client;
+    private ScheduledFuture<?> pollFuture;
+    private boolean polling;
+    private Map<String, TurnBasedMatch> updated = new LinkedHashMap<String, TurnBasedMatch>();
+    private Set<String> removed = new LinkedHashSet<String>();
+    private boolean deliveryScheduled;
+    // matchId -> version delivered last
+    private final Map<String, Integer> deliveredVersions = new HashMap<String, Integer>();
+
+    private final TurnBasedMatchUpdateCallback updateCallback = new TurnBasedMatchUpdateCallback() {
+        @Override
+        public void onTurnBasedMatchReceived(TurnBasedMatch match) {
+            onMatchReceived(match.freeze());
+        }
+
+        @Override
+        public void onTurnBasedMatchRemoved(String matchId) {
+            onMatchRemoved(matchId);
+        }
+    };
+
+    private final Runnable pollTask = new Runnable() {
+        @Override
+        public void run() {
+            poll();
+        }
+    };
+
+    private final Runnable deliverTask = new Runnable() {
+        @Override
+        public void run() {
+            deliver();
+        }
+    };
+
+    MatchUpdatePoller(DeliveryExecutor deliveryExecutor, long pollIntervalMs) {
+        this.deliveryExecutor = deliveryExecutor;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * Registers for pushed updates and polls the matches now and once per poll interval.
+     */
+    synchronized void start(TurnBasedMultiplayerClient client) {
+        if (this.client == client) return;
+        stop();
+        this.client = client;
+        client.registerTurnBasedMatchUpdateCallback(updateCallback);
+        pollFuture = BackgroundExecutor.get().scheduleWithFixedDelay(pollTask, 0, pollIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (client == null) return;
+        client.unregisterTurnBasedMatchUpdateCallback(updateCallback);
+        pollFuture.cancel(false);
+        client = null;
+        pollFuture = null;
+        polling = false;
+    }
+
+    /**
+     * Forgets delivered versions, i.e. when the player signs out.
+     */
+    synchronized void clear() {
+        updated.clear();
+        removed.clear();
+        deliveredVersions.clear();
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void poll() {
+        final TurnBasedMultiplayerClient pollClient;
+        synchronized (this) {
+            if ((client == null) || polling) return;
+            polling = true;
+            pollClient = client;
+        }
+        pollClient.loadMatchesByStatus(POLLED_STATUSES).addOnCompleteListener(
+                BackgroundExecutor.get(),
+                new OnCompleteListener<AnnotatedData<LoadMatchesResponse>>() {
+            @Override
+            public void onComplete(@NonNull Task<AnnotatedData<LoadMatchesResponse>> task) {
+                synchronized (MatchUpdatePoller.this) {
+                    polling = false;
+                }
+                if (!task.isSuccessful()) {
+                    Log.w("Turn based matches poll failed: " + task.getException());
+                    return;
+                }
+                LoadMatchesResponse response = task.getResult().get();
+                if (response == null) return;
+                try {
+                    addAll(response.getMyTurnMatches());
+                    addAll(response.getTheirTurnMatches());
+                    addAll(response.getCompletedMatches());
+                } finally {
+                    response.release();
+                }
+            }
+        });
+    }
+
+    private void addAll(TurnBasedMatchBuffer buffer) {
+        if (buffer == null) return;
+        for (TurnBasedMatch match : buffer) {
+            onMatchReceived(match.freeze());
+        }
+    }
+
+    private synchronized void onMatchReceived(TurnBasedMatch match) {
+        Integer deliveredVersion = deliveredVersions.get(match.getMatchId());
+        if ((deliveredVersion != null) && (deliveredVersion >= match.getVersion())) return;
+        TurnBasedMatch collected = updated.get(match.getMatchId());
+        if ((collected == null) || (collected.getVersion() < match.getVersion())) {
+            updated.put(match.getMatchId(), match);
+            removed.remove(match.getMatchId());
+            scheduleDelivery();
+        }
+    }
+
+    private synchronized void onMatchRemoved(String matchId) {
+        updated.remove(matchId);
+        deliveredVersions.remove(matchId);
+        removed.add(matchId);
+        scheduleDelivery();
+    }
+
+    private void scheduleDelivery() {
+        if (deliveryScheduled) return;
+        deliveryScheduled = true;
+        deliveryExecutor.get().execute(deliverTask);
+    }
+
+    /**
+     * Runs on the delivery executor.
+     */
+    private void deliver() {
+        List<TurnBasedMatch> updatedMatches;
+        List<String> removedMatchIds;
+        synchronized (this) {
+            deliveryScheduled = false;
+            if (updated.isEmpty() && removed.isEmpty()) return;
+            updatedMatches = new ArrayList<TurnBasedMatch>(updated.values());
+            removedMatchIds = new ArrayList<String>(removed);
+            for (TurnBasedMatch match : updatedMatches) {
+                deliveredVersions.put(match.getMatchId(), match.getVersion());
+            }
+            updated.clear();
+            removed.clear();
+        }
+        Listener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.onMatchesUpdated(updatedMatches, removedMatchIds);
+        }
+    }
+
+}
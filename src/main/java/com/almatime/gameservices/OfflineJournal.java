@@ -0,0 +1,525 @@
+package com.almatime.gameservices;
+
+import com.almatime.utils.Log;
+import com.google.android.gms.games.leaderboard.Leaderboard;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Append-only write-behind journal of the game services work not confirmed by the server yet:
+ * achievement unlocks, achievement increments and steps, leaderboard scores and event counts.
+ *
+ * Records are collected in memory and appended to a file on the {@link BackgroundExecutor}
+ * thread once per flush window, so callers never wait for disk. An aggregated view of all pending
+ * records is kept in memory: unlocks are flags, increments and events are summed. Scores keep
+ * the best score in the order of the leaderboard, compared by {@link ScoreOrders} the same as
+ * online, once per reset window the score improved: the daily, weekly and all time bests are
+ * separate entries keyed by {@link #scoreKey(String, int, char, long)}, so each of them is sent
+ * once. A score of a leaderboard of unknown order is kept in both orders, the server keeps
+ * the better one.
+ * Increments are sent as absolute steps: before sending, {@link #incrementToSteps} turns the
+ * claimed increment into the steps it reaches on top of the steps known on server, and keeps the
+ * max steps to set. Setting steps is safe to repeat, so an increment sent again after a process
+ * death is applied once.
+ * Sending work {@link #claim(byte)}s it: claimed work is in flight, but stays in the journal and
+ * on disk until {@link #complete(byte, String, long)} removes it after the server confirmed it,
+ * and the file is rewritten from the aggregated view. {@link #release(byte, String, long)}
+ * returns work which wasn't sent, so a process death at any point loses nothing; work in flight
+ * when the process dies is sent again.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class OfflineJournal {
+
+    static final byte OP_UNLOCK = 1;
+    static final byte OP_INCREMENT = 2;
+    static final byte OP_SCORE = 3;
+    static final byte OP_EVENT = 4;
+    static final byte OP_STEPS = 5;
+
+    static final String FILE_NAME = "gameservices_journal.bin";
+
+    // reset windows of a score key
+    static final char WINDOW_DAILY = 'd';
+    static final char WINDOW_WEEKLY = 'w';
+    static final char WINDOW_ALL_TIME = 'a';
+
+    // separates leaderboard id, score order and window of a score key
+    private static final char KEY_SEPARATOR = ':';
+
+    // max time between recording an operation and writing it to disk
+    private static final long FLUSH_WINDOW_MS = 500;
+
+    // file gets rewritten from the aggregated view when it grows over this size
+    private static final long COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+    private final File file;
+
+    // records appended since the last flush
+    private ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream(256);
+    private DataOutputStream pendingOut = new DataOutputStream(pendingBytes);
+
+    private boolean flushScheduled;
+    private boolean rewriteRequested;
+    private Future<?> lastFlush;
+
+    // aggregated view of all records: operation -> (id -> value)
+    private final Map<String, Long> unlocks = new HashMap<String, Long>();
+    private final Map<String, Long> increments = new HashMap<String, Long>();
+    private final Map<String, Long> scores = new HashMap<String, Long>();
+    private final Map<String, Long> events = new HashMap<String, Long>();
+    private final Map<String, Long> steps = new HashMap<String, Long>();
+
+    // claimed part of the aggregated view: operation -> (id -> value in flight)
+    private final Map<String, Long> unlocksInFlight = new HashMap<String, Long>();
+    private final Map<String, Long> incrementsInFlight = new HashMap<String, Long>();
+    private final Map<String, Long> scoresInFlight = new HashMap<String, Long>();
+    private final Map<String, Long> eventsInFlight = new HashMap<String, Long>();
+    private final Map<String, Long> stepsInFlight = new HashMap<String, Long>();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            writePending();
+        }
+    };
+
+    OfflineJournal(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Records an operation. Returns false if it doesn't change the pending state, i.e. a score
+     * which doesn't beat the already stored one.
+     *
+     * @param id id of the achievement or event, {@link #scoreKey(String, int, char, long)} of
+     *           a score.
+     */
+    synchronized boolean append(byte op, String id, long value) {
+        Map<String, Long> state = stateOf(op);
+        Long stored = state.get(id);
+        if (!merge(op, state, id, stored, value)) {
+            return false;
+        }
+        try {
+            writeRecord(pendingOut, op, id, value);
+        } catch (IOException e) {
+            Log.e(e); // never happens writing to memory
+        }
+        scheduleFlush(FLUSH_WINDOW_MS);
+        return true;
+    }
+
+    /**
+     * Records the score once per window it improved.
+     *
+     * @param scoreOrder Leaderboard score order, an unknown one records the score in both.
+     * @param improved {@link LocalBestScores} bits of the windows the score improves.
+     * @return false if the score doesn't beat the stored one of any window.
+     */
+    synchronized boolean appendScore(String leaderboardId, long score, int scoreOrder,
+                                     int improved, long nowMs) {
+        if (!ScoreOrders.isKnown(scoreOrder)) {
+            boolean larger = appendScore(leaderboardId, score,
+                    Leaderboard.SCORE_ORDER_LARGER_IS_BETTER, LocalBestScores.IMPROVED_ALL, nowMs);
+            boolean smaller = appendScore(leaderboardId, score,
+                    Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER, LocalBestScores.IMPROVED_ALL, nowMs);
+            return larger || smaller;
+        }
+        boolean appended = false;
+        if ((improved & LocalBestScores.IMPROVED_DAILY) != 0) {
+            appended |= append(OP_SCORE, scoreKey(leaderboardId, scoreOrder, WINDOW_DAILY,
+                    LocalBestScores.dayOf(nowMs)), score);
+        }
+        if ((improved & LocalBestScores.IMPROVED_WEEKLY) != 0) {
+            appended |= append(OP_SCORE, scoreKey(leaderboardId, scoreOrder, WINDOW_WEEKLY,
+                    LocalBestScores.weekOf(nowMs)), score);
+        }
+        if ((improved & LocalBestScores.IMPROVED_ALL_TIME) != 0) {
+            appended |= append(OP_SCORE, scoreKey(leaderboardId, scoreOrder, WINDOW_ALL_TIME, 0),
+                    score);
+        }
+        return appended;
+    }
+
+    synchronized boolean isEmpty() {
+        return unlocks.isEmpty() && increments.isEmpty() && scores.isEmpty() && events.isEmpty()
+                && steps.isEmpty();
+    }
+
+    synchronized boolean contains(byte op, String id) {
+        return stateOf(op).containsKey(id);
+    }
+
+    /**
+     * Claims the pending work of the operation which isn't in flight yet: the not yet claimed
+     * part of summed increments and events, and unclaimed unlocks, scores and steps.
+     *
+     * @return map of id -> claimed value.
+     */
+    synchronized Map<String, Long> claim(byte op) {
+        Map<String, Long> state = stateOf(op);
+        Map<String, Long> inFlight = inFlightOf(op);
+        Map<String, Long> claimed = new HashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : state.entrySet()) {
+            Long claimedBefore = inFlight.get(entry.getKey());
+            long value;
+            if (isSum(op)) {
+                value = entry.getValue() - ((claimedBefore != null) ? claimedBefore : 0);
+                if (value <= 0) continue;
+            } else {
+                if (claimedBefore != null) continue;
+                value = entry.getValue();
+            }
+            inFlight.put(entry.getKey(), entry.getValue());
+            claimed.put(entry.getKey(), value);
+        }
+        return claimed;
+    }
+
+    /**
+     * Replaces the claimed increment of an incremental achievement with the steps it reaches,
+     * in one change of the journal. The steps are set on top of the steps known on server, or of
+     * the steps pending to be set if they are higher.
+     *
+     * @param serverSteps steps of the achievement loaded from server or confirmed by it.
+     * @return steps pending to be set, {@link #claim(byte)} them with {@link #OP_STEPS}.
+     */
+    synchronized long incrementToSteps(String achievementId, long increment, long serverSteps) {
+        Long pending = steps.get(achievementId);
+        long target = Math.max(serverSteps, (pending != null) ? pending : 0) + increment;
+        append(OP_STEPS, achievementId, target);
+        complete(OP_INCREMENT, achievementId, increment);
+        return target;
+    }
+
+    /**
+     * Removes claimed work which the server confirmed, or which can never succeed. A score or
+     * steps better than the claimed ones, stored meanwhile, stay pending.
+     */
+    synchronized void complete(byte op, String id, long value) {
+        unclaim(op, id, value);
+        Map<String, Long> state = stateOf(op);
+        Long stored = state.get(id);
+        if (stored == null) return;
+        if (isSum(op)) {
+            if (stored > value) {
+                state.put(id, stored - value);
+            } else {
+                state.remove(id);
+            }
+        } else if ((op == OP_UNLOCK) || (stored == value)) {
+            state.remove(id);
+        } else {
+            return;
+        }
+        rewriteRequested = true;
+        scheduleFlush(FLUSH_WINDOW_MS);
+    }
+
+    /**
+     * Returns claimed work which wasn't sent or failed, it's claimed by the next send.
+     */
+    synchronized void release(byte op, String id, long value) {
+        unclaim(op, id, value);
+    }
+
+    private void unclaim(byte op, String id, long value) {
+        Map<String, Long> inFlight = inFlightOf(op);
+        Long claimed = inFlight.get(id);
+        if (claimed == null) return;
+        if (isSum(op) && (claimed > value)) {
+            inFlight.put(id, claimed - value);
+        } else {
+            inFlight.remove(id);
+        }
+    }
+
+    /**
+     * Blocks until all recorded operations are written to disk, or timeout elapses.
+     * Call on shutdown only.
+     */
+    void flushBlocking(long timeoutMs) {
+        Future<?> flush;
+        synchronized (this) {
+            flush = scheduleFlush(0);
+        }
+        try {
+            flush.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(e);
+        } catch (TimeoutException e) {
+            Log.w("Offline journal flush timed out");
+        }
+    }
+
+    private Map<String, Long> stateOf(byte op) {
+        switch (op) {
+            case OP_UNLOCK:
+                return unlocks;
+            case OP_INCREMENT:
+                return increments;
+            case OP_SCORE:
+                return scores;
+            case OP_EVENT:
+                return events;
+            case OP_STEPS:
+                return steps;
+            default:
+                throw new IllegalArgumentException("Unknown journal operation: " + op);
+        }
+    }
+
+    private Map<String, Long> inFlightOf(byte op) {
+        switch (op) {
+            case OP_UNLOCK:
+                return unlocksInFlight;
+            case OP_INCREMENT:
+                return incrementsInFlight;
+            case OP_SCORE:
+                return scoresInFlight;
+            case OP_EVENT:
+                return eventsInFlight;
+            case OP_STEPS:
+                return stepsInFlight;
+            default:
+                throw new IllegalArgumentException("Unknown journal operation: " + op);
+        }
+    }
+
+    private static boolean isSum(byte op) {
+        return (op == OP_INCREMENT) || (op == OP_EVENT);
+    }
+
+    private static boolean merge(byte op, Map<String, Long> state, String id, Long stored,
+                                 long value) {
+        switch (op) {
+            case OP_UNLOCK:
+                if (stored != null) return false;
+                state.put(id, value);
+                return true;
+            case OP_INCREMENT:
+            case OP_EVENT:
+                state.put(id, (stored != null) ? stored + value : value);
+                return true;
+            case OP_SCORE:
+                if ((stored != null) && !ScoreOrders.isBetter(scoreOrderOf(id), value, stored)) {
+                    return false;
+                }
+                state.put(id, value);
+                return true;
+            case OP_STEPS:
+                if ((stored != null) && (stored >= value)) return false;
+                state.put(id, value);
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown journal operation: " + op);
+        }
+    }
+
+    /**
+     * @param window {@link #WINDOW_DAILY}, {@link #WINDOW_WEEKLY} or {@link #WINDOW_ALL_TIME}.
+     * @param index day or week of the window, see {@link LocalBestScores#dayOf(long)}.
+     * @return journal id of the best score of the leaderboard in the window.
+     */
+    static String scoreKey(String leaderboardId, int scoreOrder, char window, long index) {
+        StringBuilder key = new StringBuilder(leaderboardId.length() + 24)
+                .append(leaderboardId).append(KEY_SEPARATOR)
+                .append(scoreOrder).append(KEY_SEPARATOR)
+                .append(window);
+        if (window != WINDOW_ALL_TIME) key.append(index);
+        return key.toString();
+    }
+
+    /**
+     * @return leaderboard id of the score key. A key journaled by a previous version is the
+     * leaderboard id itself.
+     */
+    static String leaderboardIdOf(String scoreKey) {
+        int orderEnd = scoreKey.lastIndexOf(KEY_SEPARATOR);
+        if (orderEnd < 0) return scoreKey;
+        return scoreKey.substring(0, scoreKey.lastIndexOf(KEY_SEPARATOR, orderEnd - 1));
+    }
+
+    /**
+     * @return score order of the score key. A key journaled by a previous version kept the max.
+     */
+    static int scoreOrderOf(String scoreKey) {
+        int orderEnd = scoreKey.lastIndexOf(KEY_SEPARATOR);
+        if (orderEnd < 0) return Leaderboard.SCORE_ORDER_LARGER_IS_BETTER;
+        int orderStart = scoreKey.lastIndexOf(KEY_SEPARATOR, orderEnd - 1) + 1;
+        return Integer.parseInt(scoreKey.substring(orderStart, orderEnd));
+    }
+
+    /**
+     * Groups claimed scores by leaderboard and score, so a score which is the best of several
+     * windows or both orders is sent once.
+     *
+     * @param claimed score key -> score, see {@link #claim(byte)}.
+     * @return leaderboard id -> (score -> score keys of it).
+     */
+    static Map<String, Map<Long, List<String>>> scoresByLeaderboard(Map<String, Long> claimed) {
+        Map<String, Map<Long, List<String>>> leaderboards =
+                new HashMap<String, Map<Long, List<String>>>();
+        for (Map.Entry<String, Long> entry : claimed.entrySet()) {
+            String leaderboardId = leaderboardIdOf(entry.getKey());
+            Map<Long, List<String>> scores = leaderboards.get(leaderboardId);
+            if (scores == null) {
+                scores = new HashMap<Long, List<String>>();
+                leaderboards.put(leaderboardId, scores);
+            }
+            List<String> keys = scores.get(entry.getValue());
+            if (keys == null) {
+                keys = new ArrayList<String>(3);
+                scores.put(entry.getValue(), keys);
+            }
+            keys.add(entry.getKey());
+        }
+        return leaderboards;
+    }
+
+    private Future<?> scheduleFlush(long delayMs) {
+        if (delayMs == 0) {
+            flushScheduled = true;
+            lastFlush = BackgroundExecutor.get().submit(flushTask);
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            lastFlush = BackgroundExecutor.get().schedule(flushTask, delayMs, TimeUnit.MILLISECONDS);
+        }
+        return lastFlush;
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void writePending() {
+        byte[] bytes;
+        boolean rewrite;
+        synchronized (this) {
+            flushScheduled = false;
+            rewrite = rewriteRequested || (file.length() > COMPACT_THRESHOLD_BYTES);
+            rewriteRequested = false;
+            if (rewrite) {
+                bytes = snapshot();
+            } else {
+                if (pendingBytes.size() == 0) return;
+                bytes = pendingBytes.toByteArray();
+            }
+            pendingBytes = new ByteArrayOutputStream(256);
+            pendingOut = new DataOutputStream(pendingBytes);
+        }
+        try {
+            if (rewrite) {
+                File tmp = new File(file.getPath() + ".tmp");
+                writeFile(tmp, bytes, false);
+                if (!tmp.renameTo(file)) {
+                    Log.w("Can't replace offline journal " + file);
+                }
+            } else {
+                writeFile(file, bytes, true);
+            }
+        } catch (IOException e) {
+            Log.e(e);
+        }
+    }
+
+    /**
+     * @return all aggregated records serialized, guarded by this.
+     */
+    private byte[] snapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            writeRecords(out, OP_UNLOCK, unlocks);
+            writeRecords(out, OP_INCREMENT, increments);
+            writeRecords(out, OP_SCORE, scores);
+            writeRecords(out, OP_EVENT, events);
+            writeRecords(out, OP_STEPS, steps);
+        } catch (IOException e) {
+            Log.e(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecords(DataOutputStream out, byte op, Map<String, Long> state)
+            throws IOException {
+        for (Map.Entry<String, Long> entry : state.entrySet()) {
+            writeRecord(out, op, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte op, String id, long value)
+            throws IOException {
+        out.writeByte(op);
+        out.writeUTF(id);
+        out.writeLong(value);
+    }
+
+    private static void writeFile(File target, byte[] bytes, boolean append) throws IOException {
+        FileOutputStream out = new FileOutputStream(target, append);
+        try {
+            out.write(bytes);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the journal file into the aggregated view. A torn record at the end of the file,
+     * left by a process killed in the middle of a write, is ignored.
+     */
+    private void load() {
+        if (!file.exists()) return;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            while (true) {
+                byte op = in.readByte();
+                String id = in.readUTF();
+                long value = in.readLong();
+                Map<String, Long> state = stateOf(op);
+                merge(op, state, id, state.get(id), value);
+            }
+        } catch (EOFException e) {
+            // end of journal
+        } catch (IOException e) {
+            Log.e(e);
+        } catch (IllegalArgumentException e) {
+            Log.e(e); // corrupted record, keep what was read before it
+        } finally {
+            // the first flush rewrites the file, dropping a torn tail or duplicates
+            rewriteRequested = true;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.e(e);
+                }
+            }
+        }
+    }
+
+}
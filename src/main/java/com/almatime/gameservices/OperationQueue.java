@@ -0,0 +1,67 @@
+package com.almatime.gameservices;
+
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded FIFO queue of operations issued while {@link GameServices} is connecting. The
+ * operations are replayed in order once the Google Clients are ready, or once the sign in failed,
+ * so they take their offline path.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class OperationQueue {
+
+    private static class QueuedOperation {
+        final Runnable operation;
+        final long enqueuedAtMs;
+
+        QueuedOperation(Runnable operation, long enqueuedAtMs) {
+            this.operation = operation;
+            this.enqueuedAtMs = enqueuedAtMs;
+        }
+    }
+
+    private final int capacity;
+    private final GameServicesMetrics metrics;
+    private final ArrayDeque<QueuedOperation> operations = new ArrayDeque<QueuedOperation>();
+
+    OperationQueue(int capacity, GameServicesMetrics metrics) {
+        this.capacity = capacity;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return false if the queue is full and the operation wasn't queued.
+     */
+    synchronized boolean offer(Runnable operation) {
+        if (operations.size() >= capacity) {
+            metrics.onOperationRejected();
+            return false;
+        }
+        operations.addLast(new QueuedOperation(operation, SystemClock.elapsedRealtime()));
+        metrics.onOperationQueued(operations.size());
+        return true;
+    }
+
+    /**
+     * Runs all queued operations in order on the calling thread.
+     */
+    void replay() {
+        while (true) {
+            QueuedOperation queued;
+            synchronized (this) {
+                queued = operations.pollFirst();
+                if (queued == null) return;
+                metrics.onOperationReplayed(operations.size(),
+                        SystemClock.elapsedRealtime() - queued.enqueuedAtMs);
+            }
+            queued.operation.run();
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.almatime.gameservices;
+
+import com.almatime.utils.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free multi-producer single-consumer ring buffer of game services operations.
+ * Any thread may {@link #offer(int, String, long)} an operation without locks or allocation;
+ * a single worker thread takes them in order and passes them to the {@link Consumer}. That orders
+ * the operations of the game among themselves only: {@link GameServices} also sends journaled and
+ * buffered work from the client sync on the parallel pool, from the main thread on sign out and
+ * from retries on the background thread, so the state it shares with the consumer must be thread
+ * safe.
+ *
+ * Each slot has a sequence number: a producer claims a slot by moving the tail with CAS, writes
+ * the operation and publishes it by setting the slot sequence, the consumer frees the slot by
+ * setting its sequence to the next lap. When the buffer is full producers yield until the worker
+ * frees a slot, before {@link #start()} they fail instead.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class OperationRingBuffer {
+
+    static final int OP_UNLOCK = 1;
+    static final int OP_INCREMENT = 2;
+    static final int OP_SCORE = 3;
+    // flush of the buffered work, ordered after the operations offered before it
+    static final int OP_FLUSH = 4;
+
+    interface Consumer {
+
+        void consume(int op, String id, long value);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final int[] ops;
+    private final String[] ids;
+    private final long[] values;
+
+    // next position to claim by producers
+    private final AtomicLong tail = new AtomicLong();
+    // next position to take by the worker, written by the worker only
+    private volatile long head;
+    // position after the last operation the consumer returned from, written by the worker only
+    private volatile long consumedPosition;
+
+    private final Consumer consumer;
+    private volatile Thread worker;
+    private volatile boolean workerSleeping;
+
+    /**
+     * @param capacity power of 2.
+     */
+    OperationRingBuffer(int capacity, Consumer consumer) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.consumer = consumer;
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        ops = new int[capacity];
+        ids = new String[capacity];
+        values = new long[capacity];
+    }
+
+    /**
+     * Starts the worker thread, operations offered before are kept.
+     */
+    synchronized void start() {
+        if (worker != null) return;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consumeLoop();
+            }
+        }, "gameServices-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * @throws IllegalStateException if the buffer is full and the worker isn't started, nothing
+     * would ever free a slot.
+     */
+    void offer(int op, String id, long value) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (diff < 0) {
+                if (worker == null) {
+                    throw new IllegalStateException("Operation buffer is full before start");
+                }
+                // full, wait for the worker to free the slot
+                wakeWorker();
+                Thread.yield();
+            }
+            // diff > 0: another producer claimed the position, retry
+        }
+        ops[index] = op;
+        ids[index] = id;
+        values[index] = value;
+        sequences.set(index, position + 1);
+        if (workerSleeping) wakeWorker();
+    }
+
+    /**
+     * Waits until the consumer has returned from all operations offered before the call, or
+     * timeout elapses. Call on shutdown only.
+     */
+    void awaitConsumed(long timeoutMs) {
+        if (worker == null) return;
+        long target = tail.get();
+        // monotonic, unlike the wall clock
+        long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while ((consumedPosition < target) && (System.nanoTime() - deadlineNs < 0)) {
+            wakeWorker();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void wakeWorker() {
+        Thread thread = worker;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    private void consumeLoop() {
+        while (true) {
+            if (!consumeAvailable()) {
+                workerSleeping = true;
+                if (sequences.get((int) head & mask) != head + 1) {
+                    LockSupport.park(this);
+                }
+                workerSleeping = false;
+            }
+        }
+    }
+
+    /**
+     * Runs on the worker thread only.
+     *
+     * @return false if there was nothing to consume.
+     */
+    private boolean consumeAvailable() {
+        boolean consumed = false;
+        while (true) {
+            long position = head;
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) return consumed;
+
+            int op = ops[index];
+            String id = ids[index];
+            long value = values[index];
+            ids[index] = null;
+            sequences.set(index, position + capacity);
+            head = position + 1;
+            consumed = true;
+            try {
+                consumer.consume(op, id, value);
+            } catch (RuntimeException e) {
+                Log.e(e);
+            }
+            // the slot is freed before, so producers don't wait for the consumer
+            consumedPosition = position + 1;
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+package com.almatime.gameservices;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+import com.almatime.gameservices.data.PlayerProfile;
+import com.almatime.utils.Log;
+import com.google.android.gms.games.Player;
+import com.google.android.gms.games.PlayerLevelInfo;
+import com.google.android.gms.games.PlayersClient;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Profiles of the players signed in on the device, keyed by Google account id. Kept in a memory
+ * LRU backed by a small file, so the profile of the last signed in player is served synchronously
+ * on later launches before sign in. Reloaded with {@link PlayersClient#getCurrentPlayer()} in
+ * background when older than TTL.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class PlayerProfileCache {
+
+    static final String FILE_NAME = "gameservices_players.bin";
+
+    private static final int FILE_VERSION = 1;
+
+    // players of a device are few, the LRU only bounds the file
+    private static final int MAX_PROFILES = 4;
+
+    private static class Entry {
+        final PlayerProfile profile;
+        final long loadedAtMs;
+
+        Entry(PlayerProfile profile, long loadedAtMs) {
+            this.profile = profile;
+            this.loadedAtMs = loadedAtMs;
+        }
+    }
+
+    private final File file;
+    private final LruCache<String, Entry> entries = new LruCache<String, Entry>(MAX_PROFILES);
+    // account ids with a reload in flight, guarded by this
+    private final Set<String> loading = new HashSet<String>();
+    private volatile long ttlMs;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            write();
+        }
+    };
+
+    PlayerProfileCache(File file, long ttlMs) {
+        this.file = file;
+        this.ttlMs = ttlMs;
+        read();
+    }
+
+    void setTtl(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * @return cached profile of the account or null if it was never loaded.
+     */
+    PlayerProfile get(String accountId) {
+        Entry entry = entries.get(accountId);
+        return (entry != null) ? entry.profile : null;
+    }
+
+    /**
+     * Reloads the profile of the account in background if it's missing or older than TTL.
+     * Only one load per account runs at a time.
+     */
+    void refreshIfStale(final String accountId, PlayersClient client) {
+        if ((accountId == null) || (client == null)) return;
+        Entry entry = entries.get(accountId);
+        if ((entry != null) && (System.currentTimeMillis() - entry.loadedAtMs <= ttlMs)) return;
+        synchronized (this) {
+            if (!loading.add(accountId)) return;
+        }
+        client.getCurrentPlayer().addOnCompleteListener(new OnCompleteListener<Player>() {
+            @Override
+            public void onComplete(@NonNull Task<Player> task) {
+                synchronized (PlayerProfileCache.this) {
+                    loading.remove(accountId);
+                }
+                if (!task.isSuccessful() || (task.getResult() == null)) {
+                    Log.w("Player profile load failed: " + task.getException());
+                    return;
+                }
+                entries.put(accountId, new Entry(toProfile(task.getResult()),
+                        System.currentTimeMillis()));
+                BackgroundExecutor.get().execute(writeTask);
+            }
+        });
+    }
+
+    private static PlayerProfile toProfile(Player player) {
+        PlayerProfile profile = new PlayerProfile();
+        profile.setPlayerId(player.getPlayerId());
+        profile.setDisplayName(player.getDisplayName());
+        profile.setIconImageUri(toString(player.getIconImageUri()));
+        profile.setHiResImageUri(toString(player.getHiResImageUri()));
+        PlayerLevelInfo levelInfo = player.getLevelInfo();
+        if (levelInfo != null) {
+            if (levelInfo.getCurrentLevel() != null) {
+                profile.setLevelNumber(levelInfo.getCurrentLevel().getLevelNumber());
+            }
+            profile.setCurrentXpTotal(levelInfo.getCurrentXpTotal());
+        }
+        return profile;
+    }
+
+    private static String toString(Uri uri) {
+        return (uri != null) ? uri.toString() : null;
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void write() {
+        // ordered from the least recently used, the read restores the order
+        Map<String, Entry> snapshot = entries.snapshot();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> mapEntry : snapshot.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                PlayerProfile profile = entry.profile;
+                out.writeUTF(mapEntry.getKey());
+                out.writeLong(entry.loadedAtMs);
+                writeNullableUTF(out, profile.getPlayerId());
+                writeNullableUTF(out, profile.getDisplayName());
+                writeNullableUTF(out, profile.getIconImageUri());
+                writeNullableUTF(out, profile.getHiResImageUri());
+                out.writeInt(profile.getLevelNumber());
+                out.writeLong(profile.getCurrentXpTotal());
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            FileOutputStream fileOut = new FileOutputStream(tmp);
+            try {
+                bytes.writeTo(fileOut);
+                fileOut.getFD().sync();
+            } finally {
+                fileOut.close();
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w("Can't replace player profiles " + file);
+            }
+        } catch (IOException e) {
+            Log.e(e);
+        }
+    }
+
+    private void read() {
+        if (!file.exists()) return;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FILE_VERSION) return;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String accountId = in.readUTF();
+                long loadedAtMs = in.readLong();
+                PlayerProfile profile = new PlayerProfile();
+                profile.setPlayerId(readNullableUTF(in));
+                profile.setDisplayName(readNullableUTF(in));
+                profile.setIconImageUri(readNullableUTF(in));
+                profile.setHiResImageUri(readNullableUTF(in));
+                profile.setLevelNumber(in.readInt());
+                profile.setCurrentXpTotal(in.readLong());
+                entries.put(accountId, new Entry(profile, loadedAtMs));
+            }
+        } catch (IOException e) {
+            Log.e(e); // the file is replaced as a whole, a partial read means corruption
+            entries.evictAll();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.e(e);
+                }
+            }
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.almatime.gameservices;
+
+import android.os.SystemClock;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the replay of the offline journal with exponential backoff and jitter after failed
+ * submissions. The failed work itself is kept in the journal, so it survives process death and is
+ * replayed on the next sign in as well; this class only tracks attempts per submission and decides
+ * when the next replay runs.
+ *
+ * One replay is scheduled at a time, an earlier request replaces a later one.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class RetryScheduler {
+
+    private static final long BASE_DELAY_MS = 2 * 1000;
+    private static final long MAX_DELAY_MS = 15 * 60 * 1000;
+
+    private final Runnable replayTask;
+    private final GameServicesMetrics metrics;
+    private final Random random = new Random();
+
+    // guarded by this
+    // op:id -> failed attempts of the submission
+    private final Map<String, Integer> attempts = new HashMap<String, Integer>();
+    private ScheduledFuture<?> replayFuture;
+    private long replayAtMs;
+
+    private final Runnable runReplayTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (RetryScheduler.this) {
+                replayFuture = null;
+            }
+            replayTask.run();
+        }
+    };
+
+    RetryScheduler(Runnable replayTask, GameServicesMetrics metrics) {
+        this.replayTask = replayTask;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return false for failures which fail again however late they are retried, i.e. an unknown
+     * achievement or leaderboard id.
+     */
+    static boolean isRetryable(Exception e) {
+        return !(e instanceof ApiException)
+                || (((ApiException) e).getStatusCode() != CommonStatusCodes.DEVELOPER_ERROR);
+    }
+
+    /**
+     * Counts the submission as a retry attempt if it failed before.
+     */
+    synchronized void onSent(byte op, String id) {
+        if (attempts.isEmpty()) return;
+        if (attempts.containsKey(keyOf(op, id))) {
+            metrics.onSubmissionRetried();
+        }
+    }
+
+    synchronized void onSucceeded(byte op, String id) {
+        if (attempts.isEmpty()) return;
+        if (attempts.remove(keyOf(op, id)) != null) {
+            metrics.onSubmissionRetrySucceeded();
+        }
+    }
+
+    /**
+     * Records a failure of work already stored in the journal and schedules the replay after
+     * the backoff of the submission.
+     */
+    synchronized void onFailed(byte op, String id) {
+        String key = keyOf(op, id);
+        Integer failed = attempts.get(key);
+        int attempt = (failed != null) ? failed + 1 : 1;
+        attempts.put(key, attempt);
+        schedule(backoffMs(attempt, random));
+    }
+
+    /**
+     * Records a failure which isn't retried, the work is dropped.
+     */
+    synchronized void onAbandoned(byte op, String id) {
+        attempts.remove(keyOf(op, id));
+        metrics.onSubmissionAbandoned();
+    }
+
+    /**
+     * Schedules the replay after delayMs unless one runs earlier.
+     */
+    synchronized void schedule(long delayMs) {
+        long atMs = SystemClock.elapsedRealtime() + delayMs;
+        if (replayFuture != null) {
+            if (replayAtMs <= atMs) return;
+            replayFuture.cancel(false);
+        }
+        replayAtMs = atMs;
+        replayFuture = BackgroundExecutor.get().schedule(runReplayTask, delayMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Forgets the attempts, i.e. when the player signs out.
+     */
+    synchronized void clear() {
+        attempts.clear();
+    }
+
+    /**
+     * @return delay doubled per attempt up to the max, half of it randomized so clients failed
+     * together don't retry together.
+     */
+    static long backoffMs(int attempt, Random random) {
+        long delayMs = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 1, 20));
+        return delayMs / 2 + (long) (random.nextDouble() * (delayMs / 2));
+    }
+
+    private static String keyOf(byte op, String id) {
+        return op + ":" + id;
+    }
+
+}
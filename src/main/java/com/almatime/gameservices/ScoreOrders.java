@@ -0,0 +1,40 @@
+package com.almatime.gameservices;
+
+import com.google.android.gms.games.leaderboard.Leaderboard;
+
+/**
+ * Compares leaderboard scores in the score order of the leaderboard. The one comparison used by
+ * the score buffer, the offline journal and the local best scores, so scores are merged the same
+ * way online and offline.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+final class ScoreOrders {
+
+    // marks a leaderboard neither set by the game nor in loaded metadata
+    static final int UNKNOWN = -1;
+
+    private ScoreOrders() {
+    }
+
+    static boolean isKnown(int scoreOrder) {
+        return (scoreOrder == Leaderboard.SCORE_ORDER_LARGER_IS_BETTER)
+                || (scoreOrder == Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER);
+    }
+
+    /**
+     * @return true if the score beats the other one, false for an unknown order.
+     */
+    static boolean isBetter(int scoreOrder, long score, long other) {
+        switch (scoreOrder) {
+            case Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER:
+                return score < other;
+            case Leaderboard.SCORE_ORDER_LARGER_IS_BETTER:
+                return score > other;
+            default:
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.almatime.gameservices;
+
+import android.content.Context;
+
+import com.google.android.gms.auth.api.signin.GoogleSignIn;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+
+/**
+ * Holds the signed in account and the {@link GameServices.ConnectionState}, updated from
+ * the sign-in and sign-out paths of {@link GameServices}, so checking the sign-in state is
+ * a volatile read instead of {@link GoogleSignIn#getLastSignedInAccount(Context)}.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class SignInState {
+
+    private volatile GoogleSignInAccount account;
+    private volatile GameServices.ConnectionState connectionState =
+            GameServices.ConnectionState.DISCONNECTED;
+
+    boolean isSignedIn() {
+        return account != null;
+    }
+
+    GoogleSignInAccount getAccount() {
+        return account;
+    }
+
+    GameServices.ConnectionState getConnectionState() {
+        return connectionState;
+    }
+
+    boolean isConnecting() {
+        return connectionState == GameServices.ConnectionState.CONNECTING;
+    }
+
+    void setConnectionState(GameServices.ConnectionState connectionState) {
+        this.connectionState = connectionState;
+    }
+
+    void onSignedIn(GoogleSignInAccount account) {
+        this.account = account;
+    }
+
+    void onSignedOut() {
+        account = null;
+        connectionState = GameServices.ConnectionState.DISCONNECTED;
+    }
+
+    /**
+     * Re-reads the account stored by Google Sign-In, i.e. when it could be changed outside of
+     * {@link GameServices}.
+     */
+    void refresh(Context context) {
+        account = GoogleSignIn.getLastSignedInAccount(context);
+    }
+
+}
@@ -0,0 +1,433 @@
+package com.almatime.gameservices;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.almatime.utils.Log;
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Continuation;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Background write pipeline of Saved Games. Saves of the same snapshot requested within the save
+ * interval are coalesced into one commit of the latest data, a snapshot whose content hash equals
+ * the last committed one isn't written, and payloads are compressed.
+ *
+ * Saves requested while the snapshots client isn't connected stay pending until the next
+ * {@link #flush()} with a client. A failed commit is retried with the backoff of
+ * {@link RetryScheduler}, a commit which can't succeed is abandoned. Conflicts are resolved in
+ * favour of the most recently modified version. Network work and compression run on the
+ * {@link BackgroundExecutor} thread.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class SnapshotStore {
+
+    interface ClientSource {
+
+        /**
+         * @return connected snapshots client or null.
+         */
+        SnapshotsClient get();
+    }
+
+    interface LoadCallback {
+
+        void onLoaded(String name, byte[] data);
+
+        void onFailed(String name, Exception e);
+    }
+
+    // header of payloads written by this class, followed by the format byte
+    private static final byte[] MAGIC = {'G', 'S', 'S', 'V'};
+    private static final byte FORMAT_STORED = 0;
+    private static final byte FORMAT_DEFLATE = 1;
+
+    // conflicts resolved per open before giving up, a new one appears if the snapshot keeps
+    // changing on another device
+    private static final int MAX_CONFLICT_RESOLUTIONS = 3;
+
+    private final ClientSource clientSource;
+    private final GameServicesMetrics metrics;
+    private final Executor executor = BackgroundExecutor.get();
+    private final Random random = new Random();
+
+    // guarded by this
+    private final Map<String, byte[]> pending = new HashMap<String, byte[]>();
+    private final Set<String> committing = new HashSet<String>();
+    private final Map<String, byte[]> committedHashes = new HashMap<String, byte[]>();
+    // name -> failed commits in a row, and the earliest time of the next commit
+    private final Map<String, Integer> failedCommits = new HashMap<String, Integer>();
+    private final Map<String, Long> retryAtMs = new HashMap<String, Long>();
+    private boolean flushScheduled;
+    private long flushAtMs;
+
+    private volatile long saveIntervalMs;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            commitPending();
+        }
+    };
+
+    SnapshotStore(ClientSource clientSource, GameServicesMetrics metrics, long saveIntervalMs) {
+        this.clientSource = clientSource;
+        this.metrics = metrics;
+        this.saveIntervalMs = saveIntervalMs;
+    }
+
+    void setSaveIntervalMs(long saveIntervalMs) {
+        this.saveIntervalMs = saveIntervalMs;
+    }
+
+    /**
+     * Replaces the pending data of the snapshot, which is committed when the save interval ends.
+     * The data must not be modified after the call.
+     */
+    synchronized void save(String name, byte[] data) {
+        metrics.onSnapshotSaveRequested();
+        if (pending.put(name, data) != null) {
+            metrics.onSnapshotSaveCoalesced();
+        }
+        scheduleFlush(saveIntervalMs);
+    }
+
+    /**
+     * Commits the pending saves now.
+     */
+    synchronized void flush() {
+        if (!pending.isEmpty()) {
+            scheduleFlush(0);
+        }
+    }
+
+    /**
+     * Forgets the hashes of committed snapshots and the failed commits, i.e. when the player
+     * signs out.
+     */
+    synchronized void clearCommitted() {
+        committedHashes.clear();
+        failedCommits.clear();
+        retryAtMs.clear();
+    }
+
+    /**
+     * Schedules the flush after delayMs unless one runs earlier. Guarded by this.
+     */
+    private void scheduleFlush(long delayMs) {
+        long atMs = SystemClock.elapsedRealtime() + delayMs;
+        if (delayMs == 0) {
+            flushScheduled = true;
+            flushAtMs = atMs;
+            BackgroundExecutor.get().execute(flushTask);
+        } else if (!flushScheduled || (atMs < flushAtMs)) {
+            // a later flush still runs, it finds nothing due
+            flushScheduled = true;
+            flushAtMs = atMs;
+            BackgroundExecutor.get().schedule(flushTask, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs on the background thread only.
+     */
+    private void commitPending() {
+        SnapshotsClient client = clientSource.get();
+        List<String> names = new ArrayList<String>();
+        List<byte[]> datas = new ArrayList<byte[]>();
+        synchronized (this) {
+            long nowMs = SystemClock.elapsedRealtime();
+            flushScheduled = false;
+            if (client == null) return; // stays pending until connected
+            long nextRetryAtMs = Long.MAX_VALUE;
+            for (Map.Entry<String, byte[]> entry : pending.entrySet()) {
+                Long retryAt = retryAtMs.get(entry.getKey());
+                if ((retryAt != null) && (retryAt > nowMs)) {
+                    // backing off after a failed commit
+                    nextRetryAtMs = Math.min(nextRetryAtMs, retryAt);
+                    continue;
+                }
+                // one commit of a snapshot at a time, the newer data waits for it
+                if (committing.add(entry.getKey())) {
+                    names.add(entry.getKey());
+                    datas.add(entry.getValue());
+                }
+            }
+            for (String name : names) {
+                pending.remove(name);
+            }
+            if (nextRetryAtMs != Long.MAX_VALUE) {
+                scheduleFlush(nextRetryAtMs - nowMs);
+            }
+        }
+        for (int i = 0; i < names.size(); i++) {
+            commit(client, names.get(i), datas.get(i));
+        }
+    }
+
+    private void commit(final SnapshotsClient client, final String name, final byte[] data) {
+        final byte[] hash = hashOf(data);
+        synchronized (this) {
+            if ((hash != null) && Arrays.equals(hash, committedHashes.get(name))) {
+                committing.remove(name);
+                metrics.onSnapshotWriteSkipped();
+                return;
+            }
+        }
+        final byte[] payload = encode(data);
+        final long startMs = SystemClock.elapsedRealtime();
+        open(client, name, true).continueWithTask(executor,
+                new Continuation<Snapshot, Task<SnapshotMetadata>>() {
+            @Override
+            public Task<SnapshotMetadata> then(@NonNull Task<Snapshot> task) throws Exception {
+                Snapshot snapshot = snapshotOf(task);
+                if (!snapshot.getSnapshotContents().writeBytes(payload)) {
+                    client.discardAndClose(snapshot);
+                    throw new IOException("Can't write snapshot " + name);
+                }
+                return client.commitAndClose(snapshot, SnapshotMetadataChange.EMPTY_CHANGE);
+            }
+        }).addOnCompleteListener(executor, new OnCompleteListener<SnapshotMetadata>() {
+            @Override
+            public void onComplete(@NonNull Task<SnapshotMetadata> task) {
+                Exception e = task.getException();
+                boolean retryable = (e == null) || RetryScheduler.isRetryable(e);
+                synchronized (SnapshotStore.this) {
+                    committing.remove(name);
+                    if (task.isSuccessful()) {
+                        if (hash != null) committedHashes.put(name, hash);
+                    }
+                    if (task.isSuccessful() || !retryable) {
+                        failedCommits.remove(name);
+                        retryAtMs.remove(name);
+                    } else {
+                        Integer failed = failedCommits.get(name);
+                        int attempt = (failed != null) ? failed + 1 : 1;
+                        failedCommits.put(name, attempt);
+                        retryAtMs.put(name, SystemClock.elapsedRealtime()
+                                + RetryScheduler.backoffMs(attempt, random));
+                        if (!pending.containsKey(name)) {
+                            pending.put(name, data); // retried after the backoff
+                        }
+                    }
+                    if (!pending.isEmpty()) scheduleFlush(saveIntervalMs);
+                }
+                if (task.isSuccessful()) {
+                    metrics.onSnapshotCommitted(data.length, payload.length,
+                            SystemClock.elapsedRealtime() - startMs);
+                } else if (retryable) {
+                    Log.w("Snapshot " + name + " commit failed, retrying: " + e);
+                } else {
+                    Log.w("Snapshot " + name + " commit abandoned: " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the snapshot. A pending save of it is returned without a request.
+     *
+     * @param callback called on a background thread.
+     */
+    void load(final String name, final LoadCallback callback) {
+        synchronized (this) {
+            byte[] data = pending.get(name);
+            if (data != null) {
+                callback.onLoaded(name, data);
+                return;
+            }
+        }
+        final SnapshotsClient client = clientSource.get();
+        if (client == null) {
+            callback.onFailed(name, new IllegalStateException("Snapshots client isn't connected"));
+            return;
+        }
+        open(client, name, false).continueWith(executor, new Continuation<Snapshot, byte[]>() {
+            @Override
+            public byte[] then(@NonNull Task<Snapshot> task) throws Exception {
+                Snapshot snapshot = snapshotOf(task);
+                byte[] payload;
+                try {
+                    payload = snapshot.getSnapshotContents().readFully();
+                } finally {
+                    client.discardAndClose(snapshot);
+                }
+                byte[] data = decode(payload);
+                byte[] hash = hashOf(data);
+                synchronized (SnapshotStore.this) {
+                    if (hash != null) committedHashes.put(name, hash);
+                }
+                return data;
+            }
+        }).addOnCompleteListener(executor, new OnCompleteListener<byte[]>() {
+            @Override
+            public void onComplete(@NonNull Task<byte[]> task) {
+                if (task.isSuccessful()) {
+                    callback.onLoaded(name, task.getResult());
+                } else {
+                    callback.onFailed(name, failureOf(task));
+                }
+            }
+        });
+    }
+
+    /**
+     * Opens the snapshot. A conflict left by the policy, i.e. the snapshot changed on another
+     * device meanwhile, is resolved with the most recently modified version.
+     */
+    private Task<Snapshot> open(SnapshotsClient client, String name, boolean createIfNotFound) {
+        return client.open(name, createIfNotFound,
+                SnapshotsClient.RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED)
+                .continueWithTask(executor, resolveConflict(client, name, 0));
+    }
+
+    private Continuation<SnapshotsClient.DataOrConflict<Snapshot>, Task<Snapshot>>
+            resolveConflict(final SnapshotsClient client, final String name,
+                            final int resolutions) {
+        return new Continuation<SnapshotsClient.DataOrConflict<Snapshot>, Task<Snapshot>>() {
+            @Override
+            public Task<Snapshot> then(
+                    @NonNull Task<SnapshotsClient.DataOrConflict<Snapshot>> task) throws Exception {
+                if (!task.isSuccessful()) {
+                    throw failureOf(task);
+                }
+                SnapshotsClient.DataOrConflict<Snapshot> result = task.getResult();
+                if (!result.isConflict()) {
+                    return Tasks.forResult(result.getData());
+                }
+                SnapshotsClient.SnapshotConflict conflict = result.getConflict();
+                Snapshot snapshot = conflict.getSnapshot();
+                Snapshot conflictingSnapshot = conflict.getConflictingSnapshot();
+                if (resolutions >= MAX_CONFLICT_RESOLUTIONS) {
+                    client.discardAndClose(snapshot);
+                    client.discardAndClose(conflictingSnapshot);
+                    throw new IOException("Unresolved conflict of snapshot " + name);
+                }
+                Snapshot resolved = (lastModifiedOf(conflictingSnapshot) > lastModifiedOf(snapshot))
+                        ? conflictingSnapshot : snapshot;
+                return client.resolveConflict(conflict.getConflictId(), resolved)
+                        .continueWithTask(executor,
+                                resolveConflict(client, name, resolutions + 1));
+            }
+        };
+    }
+
+    private static long lastModifiedOf(Snapshot snapshot) {
+        return (snapshot.getMetadata() != null)
+                ? snapshot.getMetadata().getLastModifiedTimestamp() : 0;
+    }
+
+    private static Snapshot snapshotOf(Task<Snapshot> task) throws Exception {
+        if (!task.isSuccessful()) {
+            throw failureOf(task);
+        }
+        return task.getResult();
+    }
+
+    /**
+     * @return exception of the failed task, a canceled task has none.
+     */
+    private static Exception failureOf(Task<?> task) {
+        Exception e = task.getException();
+        if (e != null) return e;
+        return new CancellationException(task.isCanceled() ? "Snapshot task canceled"
+                : "Snapshot task failed without an exception");
+    }
+
+    private static byte[] hashOf(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            Log.e(e);
+            return null;
+        }
+    }
+
+    /**
+     * @return data with the header, deflated unless it doesn't get smaller.
+     */
+    static byte[] encode(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2 + 16);
+        bytes.write(MAGIC, 0, MAGIC.length);
+        bytes.write(FORMAT_DEFLATE);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater);
+            out.write(data);
+            out.finish();
+        } catch (IOException e) {
+            Log.e(e); // never happens writing to memory
+        } finally {
+            deflater.end();
+        }
+        if (bytes.size() < data.length + MAGIC.length + 1) {
+            return bytes.toByteArray();
+        }
+        byte[] stored = new byte[data.length + MAGIC.length + 1];
+        System.arraycopy(MAGIC, 0, stored, 0, MAGIC.length);
+        stored[MAGIC.length] = FORMAT_STORED;
+        System.arraycopy(data, 0, stored, MAGIC.length + 1, data.length);
+        return stored;
+    }
+
+    /**
+     * @return data of the payload, a payload without the header is returned as is.
+     */
+    static byte[] decode(byte[] payload) throws IOException {
+        if ((payload == null) || (payload.length <= MAGIC.length)
+                || !Arrays.equals(MAGIC, Arrays.copyOf(payload, MAGIC.length))) {
+            return payload;
+        }
+        int offset = MAGIC.length + 1;
+        switch (payload[MAGIC.length]) {
+            case FORMAT_STORED:
+                return Arrays.copyOfRange(payload, offset, payload.length);
+            case FORMAT_DEFLATE:
+                InflaterInputStream in = new InflaterInputStream(
+                        new ByteArrayInputStream(payload, offset, payload.length - offset));
+                ByteArrayOutputStream data = new ByteArrayOutputStream(payload.length * 3);
+                try {
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        data.write(buffer, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+                return data.toByteArray();
+            default:
+                throw new IOException("Unknown snapshot format " + payload[MAGIC.length]);
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.almatime.gameservices;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Compact binary codec of turn based match data over reusable {@link ByteBuffer}s. Match data is
+ * size capped by the server, so values are written as var-ints where they are usually small.
+ *
+ * <pre>
+ * ByteBuffer out = codec.beginWrite();
+ * TurnDataCodec.putVarInt(out, round);
+ * TurnDataCodec.putString(out, lastMove);
+ * multiplayer.takeTurn(matchId, codec.endWrite(), nextParticipantId);
+ *
+ * ByteBuffer in = codec.read(match.getData());
+ * if (in != null) {
+ *     int round = TurnDataCodec.getVarInt(in);
+ *     String lastMove = TurnDataCodec.getString(in);
+ * }
+ * </pre>
+ *
+ * The write buffer is allocated once and reused by every turn, {@link #read(byte[])} wraps
+ * the match data without copying it. A version byte leads the data, so a newer build of the game
+ * can tell turns written by an older one.
+ *
+ * Not thread safe, use one codec per thread.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class TurnDataCodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte version;
+    private final ByteBuffer writeBuffer;
+
+    /**
+     * @param version format version of the game data, written as the first byte.
+     * @param maxDataSize max size of match data, see
+     *                    {@code TurnBasedMultiplayerClient.getMaxMatchDataSize()}.
+     */
+    public TurnDataCodec(int version, int maxDataSize) {
+        this.version = (byte) version;
+        writeBuffer = ByteBuffer.allocate(maxDataSize);
+    }
+
+    /**
+     * @return the reusable write buffer, cleared and positioned after the version byte.
+     */
+    public ByteBuffer beginWrite() {
+        writeBuffer.clear();
+        writeBuffer.put(version);
+        return writeBuffer;
+    }
+
+    /**
+     * @return the written bytes as the match data array, the only copy the turn API requires.
+     */
+    public byte[] endWrite() {
+        byte[] data = new byte[writeBuffer.position()];
+        System.arraycopy(writeBuffer.array(), writeBuffer.arrayOffset(), data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * Wraps the match data without copying.
+     *
+     * @return buffer positioned after the version byte, or null if there is no data or it was
+     * written with another version.
+     */
+    public ByteBuffer read(byte[] matchData) {
+        if ((matchData == null) || (matchData.length == 0) || (matchData[0] != version)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchData);
+        buffer.position(1);
+        return buffer;
+    }
+
+    /**
+     * Writes an unsigned value in 1-5 bytes, values below 128 take one byte.
+     */
+    public static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed var-int");
+    }
+
+    /**
+     * @return number of bytes {@link #putVarInt(ByteBuffer, int)} writes for the value.
+     */
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a signed value zigzag encoded, small negative values take one byte as well.
+     */
+    public static void putSignedVarInt(ByteBuffer out, int value) {
+        putVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int getSignedVarInt(ByteBuffer in) {
+        int value = getVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes the string as var-int length and UTF-8 bytes, null is written as an empty string.
+     * The chars are encoded straight into the buffer, without allocation.
+     *
+     * @throws BufferOverflowException if the string doesn't fit, nothing is written then.
+     */
+    public static void putString(ByteBuffer out, String value) {
+        int length = (value != null) ? utf8Length(value) : 0;
+        if (out.remaining() < varIntSize(length) + length) {
+            throw new BufferOverflowException();
+        }
+        putVarInt(out, length);
+        if (value != null) putUtf8(out, value);
+    }
+
+    /**
+     * Reads a string written by {@link #putString(ByteBuffer, String)}. Heap buffers are decoded
+     * in place, direct and read-only ones through a copy of the string bytes.
+     */
+    public static String getString(ByteBuffer in) {
+        // match data comes from other players, the length can't be trusted
+        int length = getVarInt(in);
+        if ((length < 0) || (length > in.remaining())) {
+            throw new IllegalArgumentException("Malformed string");
+        }
+        if (!in.hasArray()) {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, UTF_8);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * @return number of UTF-8 bytes of the string. An unpaired surrogate takes one byte, it's
+     * written as '?' like {@link String#getBytes(Charset)} does.
+     */
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else if (isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void putUtf8(ByteBuffer out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (isSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index)) && (index + 1 < value.length())
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    // Character.isSurrogate(char) requires API 19
+    private static boolean isSurrogate(char c) {
+        return (c >= Character.MIN_SURROGATE) && (c <= Character.MAX_SURROGATE);
+    }
+
+}
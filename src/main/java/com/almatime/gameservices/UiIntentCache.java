@@ -0,0 +1,68 @@
+package com.almatime.gameservices;
+
+import android.content.Intent;
+
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the Intents of Google Play Games UI screens, so a tap on the achievements or leaderboards
+ * button starts the activity without waiting for a get*Intent() request. Intents are prefetched
+ * after connect and are bound to the signed in account, clear the cache on sign out and on
+ * account change.
+ *
+ * Thread safe.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+class UiIntentCache {
+
+    static final String KEY_ACHIEVEMENTS = "achievements";
+    static final String KEY_ALL_LEADERBOARDS = "leaderboards";
+
+    private final Map<String, Intent> intents = new HashMap<String, Intent>();
+    // incremented on clear(), requests started before it don't fill the cache
+    private int generation;
+
+    static String leaderboardKey(String leaderboardId) {
+        return "leaderboard/" + leaderboardId;
+    }
+
+    synchronized Intent get(String key) {
+        return intents.get(key);
+    }
+
+    synchronized boolean contains(String key) {
+        return intents.containsKey(key);
+    }
+
+    /**
+     * Stores the Intent of the task when it succeeds.
+     *
+     * @return the same task.
+     */
+    synchronized Task<Intent> cache(final String key, Task<Intent> task) {
+        final int requestGeneration = generation;
+        task.addOnSuccessListener(new OnSuccessListener<Intent>() {
+            @Override
+            public void onSuccess(Intent intent) {
+                synchronized (UiIntentCache.this) {
+                    if ((intent != null) && (requestGeneration == generation)) {
+                        intents.put(key, intent);
+                    }
+                }
+            }
+        });
+        return task;
+    }
+
+    synchronized void clear() {
+        intents.clear();
+        generation++;
+    }
+
+}
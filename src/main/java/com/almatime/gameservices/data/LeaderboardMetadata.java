@@ -0,0 +1,56 @@
+package com.almatime.gameservices.data;
+
+/**
+ * Holds metadata of {@link com.google.android.gms.games.leaderboard.Leaderboard} for display in
+ * game menus.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class LeaderboardMetadata {
+
+    private String leaderboardId;
+    private String displayName;
+    private String iconImageUri;
+    private int scoreOrder;
+
+    public String getLeaderboardId() {
+        return leaderboardId;
+    }
+
+    public void setLeaderboardId(String leaderboardId) {
+        this.leaderboardId = leaderboardId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return uri of the icon to load with {@code ImageManager}, or null if there is no icon.
+     */
+    public String getIconImageUri() {
+        return iconImageUri;
+    }
+
+    public void setIconImageUri(String iconImageUri) {
+        this.iconImageUri = iconImageUri;
+    }
+
+    /**
+     * @return {@code Leaderboard.SCORE_ORDER_LARGER_IS_BETTER} or
+     * {@code Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER}.
+     */
+    public int getScoreOrder() {
+        return scoreOrder;
+    }
+
+    public void setScoreOrder(int scoreOrder) {
+        this.scoreOrder = scoreOrder;
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.almatime.gameservices.data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of loading current player scores of several leaderboards at once. Leaderboards where
+ * the player has no score are present in neither {@link #getScores()} nor {@link #getFailures()}.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class LeaderboardScoresResult {
+
+    private final Map<String, LeaderboardUserScore> scores =
+            new LinkedHashMap<String, LeaderboardUserScore>();
+    private final Map<String, Long> loadTimesMs = new LinkedHashMap<String, Long>();
+    private final Map<String, Exception> failures = new LinkedHashMap<String, Exception>();
+    private long totalTimeMs;
+
+    /**
+     * @return leaderboardId -> player score.
+     */
+    public Map<String, LeaderboardUserScore> getScores() {
+        return Collections.unmodifiableMap(scores);
+    }
+
+    /**
+     * @return leaderboardId -> time the load took in milliseconds, 0 when served from cache.
+     */
+    public Map<String, Long> getLoadTimesMs() {
+        return Collections.unmodifiableMap(loadTimesMs);
+    }
+
+    /**
+     * @return leaderboardId -> reason why the score wasn't loaded.
+     */
+    public Map<String, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @return time from the start of the load until the result was complete in milliseconds.
+     */
+    public long getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    public void putScore(String leaderboardId, LeaderboardUserScore userScore, long loadTimeMs) {
+        if (userScore != null) {
+            scores.put(leaderboardId, userScore);
+        }
+        loadTimesMs.put(leaderboardId, loadTimeMs);
+    }
+
+    public void putFailure(String leaderboardId, Exception e, long loadTimeMs) {
+        failures.put(leaderboardId, e);
+        loadTimesMs.put(leaderboardId, loadTimeMs);
+    }
+
+    public void setTotalTimeMs(long totalTimeMs) {
+        this.totalTimeMs = totalTimeMs;
+    }
+
+}
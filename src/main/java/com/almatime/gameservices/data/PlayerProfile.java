@@ -0,0 +1,75 @@
+package com.almatime.gameservices.data;
+
+/**
+ * Holds profile data of {@link com.google.android.gms.games.Player}.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class PlayerProfile {
+
+    private String playerId;
+    private String displayName;
+    private String iconImageUri;
+    private String hiResImageUri;
+    private int levelNumber;
+    private long currentXpTotal;
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return uri of the icon to load with {@code ImageManager}, or null if there is no icon.
+     */
+    public String getIconImageUri() {
+        return iconImageUri;
+    }
+
+    public void setIconImageUri(String iconImageUri) {
+        this.iconImageUri = iconImageUri;
+    }
+
+    /**
+     * @return uri of the high resolution image, or null if there is no image.
+     */
+    public String getHiResImageUri() {
+        return hiResImageUri;
+    }
+
+    public void setHiResImageUri(String hiResImageUri) {
+        this.hiResImageUri = hiResImageUri;
+    }
+
+    /**
+     * @return current level of the player, 0 if level info isn't available.
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    public void setLevelNumber(int levelNumber) {
+        this.levelNumber = levelNumber;
+    }
+
+    public long getCurrentXpTotal() {
+        return currentXpTotal;
+    }
+
+    public void setCurrentXpTotal(long currentXpTotal) {
+        this.currentXpTotal = currentXpTotal;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.almatime.utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Collects callbacks posted from any thread and runs them on the game thread when
+ * {@link #drain()} is called, i.e. once per frame from the render loop. Pass it to
+ * GameServices.setCallbackExecutor(..) or BillingServices.setCallbackExecutor(..) so the
+ * listeners are called on the game thread without another hop.
+ *
+ * Doesn't allocate once its lists have grown to the number of callbacks per frame.
+ *
+ * @version 1.1.0, 16/10/2026.
+ * @since 1.1.0
+ */
+public class FrameCallbackExecutor implements Executor {
+
+    private ArrayList<Runnable> pending = new ArrayList<Runnable>();
+    private ArrayList<Runnable> running = new ArrayList<Runnable>();
+
+    @Override
+    public void execute(Runnable command) {
+        synchronized (this) {
+            pending.add(command);
+        }
+    }
+
+    /**
+     * Runs all callbacks posted before this call. Callbacks posted while draining run on the next
+     * call. If a callback throws, the not yet run callbacks are kept for the next call.
+     *
+     * @return number of callbacks run.
+     */
+    public int drain() {
+        ArrayList<Runnable> callbacks;
+        synchronized (this) {
+            if (pending.isEmpty()) return 0;
+            callbacks = pending;
+            pending = running;
+            running = callbacks;
+        }
+        int count = callbacks.size();
+        int i = 0;
+        try {
+            for (; i < count; i++) {
+                callbacks.get(i).run();
+            }
+        } finally {
+            if (i < count - 1) {
+                synchronized (this) {
+                    pending.addAll(0, callbacks.subList(i + 1, count));
+                }
+            }
+            callbacks.clear();
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.almatime.gameservices;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link GameServices#onPause()} keeps its flush budget of 50 ms when the journal
+ * can't reach the disk.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FastFlushTest {
+
+    // the budget plus scheduling slack of a loaded build machine
+    private static final long MAX_PAUSE_MS = 250;
+    private static final long DISK_STALL_MS = 5 * 1000;
+
+    @Test
+    public void onPauseReturnsWithinBudgetWhenDiskStalls() throws Exception {
+        GameServices gameServices = GameServices.GetInstance();
+        OfflineJournal journal = gameServices.journalOf(RuntimeEnvironment.application);
+        final CountDownLatch diskStall = new CountDownLatch(1);
+        // occupies the background thread, which writes the journal
+        BackgroundExecutor.get().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    diskStall.await(DISK_STALL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        journal.append(OfflineJournal.OP_SCORE, "leaderboard", 100);
+        try {
+            long startNs = System.nanoTime();
+            gameServices.onPause();
+            long pauseMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+
+            assertTrue("onPause blocked for " + pauseMs + " ms", pauseMs < MAX_PAUSE_MS);
+        } finally {
+            diskStall.countDown();
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.almatime.gameservices;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Counts the bytes allocated by the calls by handle on the calling thread, i.e. the render
+ * thread. The worker thread which applies the operations isn't started, it allocates when it
+ * writes the journal.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class HandleCallAllocationTest {
+
+    // per method, all calls together stay below the 1024 operations the ring holds before start
+    private static final int WARM_UP_CALLS = 50;
+    private static final int MEASURED_CALLS = 200;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private GameServices gameServices;
+    private int unlockHandle;
+    private int incrementHandle;
+    private int leaderboardHandle;
+
+    @Before
+    public void setUp() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        gameServices = GameServices.GetInstance();
+        unlockHandle = gameServices.setUnlockAchievementIds(new String[] {"unlock"})[0];
+        incrementHandle = gameServices.setIncrementAchievementIds(new String[] {"increment"})[0];
+        leaderboardHandle = gameServices.setLeaderboardIds(new String[] {"leaderboard"})[0];
+    }
+
+    @Test
+    public void unlockAchievementByHandleDoesNotAllocate() {
+        assertNoAllocation("unlockAchievement(int)", new Runnable() {
+            @Override
+            public void run() {
+                gameServices.unlockAchievement(unlockHandle);
+            }
+        });
+    }
+
+    @Test
+    public void incrementAchievementByHandleDoesNotAllocate() {
+        assertNoAllocation("incrementAchievement(int, int)", new Runnable() {
+            @Override
+            public void run() {
+                gameServices.incrementAchievement(incrementHandle, 1);
+            }
+        });
+    }
+
+    @Test
+    public void submitScoreByHandleDoesNotAllocate() {
+        assertNoAllocation("submitScoreToLeaderboard(int, long)", new Runnable() {
+            @Override
+            public void run() {
+                gameServices.submitScoreToLeaderboard(leaderboardHandle, 1000L);
+            }
+        });
+    }
+
+    private void assertNoAllocation(String method, Runnable call) {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            call.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        // reading the counter may allocate itself
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long readBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+        start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            call.run();
+        }
+        long allocatedBytes = threads.getThreadAllocatedBytes(threadId) - start - readBytes;
+
+        // less than a byte per call, no object fits
+        assertTrue(method + " allocated " + allocatedBytes + " bytes in " + MEASURED_CALLS
+                + " calls", allocatedBytes < MEASURED_CALLS);
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.almatime.gameservices;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowJobService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Runs {@link JournalFlushJob#onStartJob} without a signed in player, and completes or releases
+ * the claimed work of a job as its tasks complete or the job stops.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class JournalFlushJobTest {
+
+    private static final String LEADERBOARD_ID = "leaderboard";
+    private static final String SENT_ID = "sent";
+    private static final String FAILED_ID = "failed";
+
+    private JournalFlushJob job;
+    private OfflineJournal journal;
+
+    @Before
+    public void setUp() {
+        job = Robolectric.setupService(JournalFlushJob.class);
+        journal = GameServices.GetInstance().journalOf(RuntimeEnvironment.application);
+        clear(journal);
+    }
+
+    @Test
+    public void finishesWithoutRescheduleWhenJournalIsEmpty() throws Exception {
+        assertTrue(job.onStartJob(null));
+        awaitBackgroundThread();
+
+        ShadowJobService shadowJob = shadowOf(job);
+        assertTrue(shadowJob.getIsJobFinished());
+        assertFalse(shadowJob.getIsRescheduleNeeded());
+    }
+
+    @Test
+    public void keepsWorkWithoutSignedInAccount() throws Exception {
+        journal.append(OfflineJournal.OP_SCORE, LEADERBOARD_ID, 100);
+
+        assertTrue(job.onStartJob(null));
+        awaitBackgroundThread();
+
+        // sent on the next sign in
+        ShadowJobService shadowJob = shadowOf(job);
+        assertTrue(shadowJob.getIsJobFinished());
+        assertFalse(shadowJob.getIsRescheduleNeeded());
+        assertTrue(journal.contains(OfflineJournal.OP_SCORE, LEADERBOARD_ID));
+    }
+
+    @Test
+    public void completesSentWorkAndReleasesFailedWork() throws Exception {
+        journal.append(OfflineJournal.OP_UNLOCK, SENT_ID, 1);
+        journal.append(OfflineJournal.OP_UNLOCK, FAILED_ID, 1);
+        journal.claim(OfflineJournal.OP_UNLOCK);
+        TaskCompletionSource<Void> sent = new TaskCompletionSource<Void>();
+        TaskCompletionSource<Void> failed = new TaskCompletionSource<Void>();
+        List<Task<?>> tasks = new ArrayList<Task<?>>();
+        tasks.add(JournalFlushJob.completeOnSuccess(sent.getTask(), journal,
+                OfflineJournal.OP_UNLOCK, Collections.singletonList(SENT_ID), 1));
+        tasks.add(JournalFlushJob.completeOnSuccess(failed.getTask(), journal,
+                OfflineJournal.OP_UNLOCK, Collections.singletonList(FAILED_ID), 1));
+        job.finishWhenSent(null, tasks, journal);
+
+        sent.setResult(null);
+        failed.setException(new IOException("Network lost"));
+        awaitBackgroundThread();
+
+        ShadowJobService shadowJob = shadowOf(job);
+        assertTrue(shadowJob.getIsJobFinished());
+        assertTrue(shadowJob.getIsRescheduleNeeded());
+        assertFalse(journal.contains(OfflineJournal.OP_UNLOCK, SENT_ID));
+        // released, claimed by the next attempt
+        assertEquals(Collections.singleton(FAILED_ID),
+                journal.claim(OfflineJournal.OP_UNLOCK).keySet());
+    }
+
+    @Test
+    public void releasesClaimedWorkWhenStopped() throws Exception {
+        journal.append(OfflineJournal.OP_UNLOCK, SENT_ID, 1);
+        journal.append(OfflineJournal.OP_INCREMENT, FAILED_ID, 5);
+        journal.claim(OfflineJournal.OP_UNLOCK);
+        TaskCompletionSource<Void> sent = new TaskCompletionSource<Void>();
+        List<Task<?>> tasks = new ArrayList<Task<?>>();
+        tasks.add(JournalFlushJob.completeOnSuccess(sent.getTask(), journal,
+                OfflineJournal.OP_UNLOCK, Collections.singletonList(SENT_ID), 1));
+        job.finishWhenSent(null, tasks, journal);
+        Map<String, Long> increments = journal.claim(OfflineJournal.OP_INCREMENT);
+
+        assertTrue(job.onStopJob(null));
+        assertTrue(job.releaseIfStopped(journal, OfflineJournal.OP_INCREMENT, increments));
+        // the unlock in flight completes after the stop
+        sent.setResult(null);
+        awaitBackgroundThread();
+
+        assertFalse(shadowOf(job).getIsJobFinished());
+        assertFalse(journal.contains(OfflineJournal.OP_UNLOCK, SENT_ID));
+        assertEquals(Long.valueOf(5),
+                journal.claim(OfflineJournal.OP_INCREMENT).get(FAILED_ID));
+    }
+
+    /**
+     * The job flushes on the single background thread, a task queued after it runs once the
+     * flush returned.
+     */
+    private static void awaitBackgroundThread() throws Exception {
+        BackgroundExecutor.get().submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static void clear(OfflineJournal journal) {
+        byte[] ops = {OfflineJournal.OP_UNLOCK, OfflineJournal.OP_INCREMENT,
+                OfflineJournal.OP_SCORE, OfflineJournal.OP_EVENT, OfflineJournal.OP_STEPS};
+        for (byte op : ops) {
+            for (Map.Entry<String, Long> entry : journal.claim(op).entrySet()) {
+                journal.complete(op, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.almatime.gameservices;
+
+import com.google.android.gms.games.leaderboard.Leaderboard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OfflineJournalTest {
+
+    private static final String LEADERBOARD_ID = "leaderboard";
+    private static final String ACHIEVEMENT_ID = "achievement";
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    private static final long TIMEOUT_MS = 5 * 1000;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("journal", ".bin");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void keepsMinScoreOfSmallerIsBetterLeaderboard() {
+        OfflineJournal journal = new OfflineJournal(file);
+        long nowMs = System.currentTimeMillis();
+
+        assertTrue(journal.appendScore(LEADERBOARD_ID, 100,
+                Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER, LocalBestScores.IMPROVED_ALL, nowMs));
+        assertTrue(journal.appendScore(LEADERBOARD_ID, 50,
+                Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER, LocalBestScores.IMPROVED_ALL, nowMs));
+        assertFalse(journal.appendScore(LEADERBOARD_ID, 70,
+                Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER, LocalBestScores.IMPROVED_ALL, nowMs));
+
+        Map<Long, List<String>> scores = claimScores(journal);
+        assertEquals(1, scores.size());
+        // the best of each window, sent once
+        assertEquals(3, scores.get(50L).size());
+    }
+
+    @Test
+    public void keepsBestOfEachImprovedWindow() {
+        OfflineJournal journal = new OfflineJournal(file);
+        long nowMs = System.currentTimeMillis();
+        journal.appendScore(LEADERBOARD_ID, 100, Leaderboard.SCORE_ORDER_LARGER_IS_BETTER,
+                LocalBestScores.IMPROVED_ALL, nowMs - DAY_MS);
+        // a day later a lower score is still the best of the new day
+        journal.appendScore(LEADERBOARD_ID, 80, Leaderboard.SCORE_ORDER_LARGER_IS_BETTER,
+                LocalBestScores.IMPROVED_DAILY, nowMs);
+
+        Map<Long, List<String>> scores = claimScores(journal);
+        assertEquals(2, scores.size());
+        assertEquals(3, scores.get(100L).size());
+        assertEquals(1, scores.get(80L).size());
+    }
+
+    @Test
+    public void keepsBothOrdersOfUnknownOrder() {
+        OfflineJournal journal = new OfflineJournal(file);
+        long nowMs = System.currentTimeMillis();
+        journal.appendScore(LEADERBOARD_ID, 100, ScoreOrders.UNKNOWN, 0, nowMs);
+        journal.appendScore(LEADERBOARD_ID, 50, ScoreOrders.UNKNOWN, 0, nowMs);
+        journal.appendScore(LEADERBOARD_ID, 70, ScoreOrders.UNKNOWN, 0, nowMs);
+
+        Map<Long, List<String>> scores = claimScores(journal);
+        assertEquals(2, scores.size());
+        assertEquals(3, scores.get(100L).size());
+        assertEquals(3, scores.get(50L).size());
+    }
+
+    @Test
+    public void replaysScoresFromDisk() {
+        OfflineJournal journal = new OfflineJournal(file);
+        long nowMs = System.currentTimeMillis();
+        journal.appendScore(LEADERBOARD_ID, 100, Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER,
+                LocalBestScores.IMPROVED_ALL, nowMs);
+        journal.appendScore(LEADERBOARD_ID, 50, Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER,
+                LocalBestScores.IMPROVED_ALL, nowMs);
+        // a version without score orders journaled the leaderboard id, keeping the max
+        journal.append(OfflineJournal.OP_SCORE, "legacy", 10);
+        journal.append(OfflineJournal.OP_SCORE, "legacy", 20);
+        journal.flushBlocking(TIMEOUT_MS);
+
+        OfflineJournal reloaded = new OfflineJournal(file);
+        Map<String, Map<Long, List<String>>> leaderboards =
+                OfflineJournal.scoresByLeaderboard(reloaded.claim(OfflineJournal.OP_SCORE));
+        assertEquals(2, leaderboards.size());
+        assertEquals(1, leaderboards.get(LEADERBOARD_ID).size());
+        assertEquals(3, leaderboards.get(LEADERBOARD_ID).get(50L).size());
+        assertEquals(1, leaderboards.get("legacy").size());
+        assertTrue(leaderboards.get("legacy").containsKey(20L));
+    }
+
+    @Test
+    public void completesEachWindowOfSentScore() {
+        OfflineJournal journal = new OfflineJournal(file);
+        journal.appendScore(LEADERBOARD_ID, 50, Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER,
+                LocalBestScores.IMPROVED_ALL, System.currentTimeMillis());
+
+        for (String key : claimScores(journal).get(50L)) {
+            journal.complete(OfflineJournal.OP_SCORE, key, 50);
+        }
+
+        assertTrue(journal.isEmpty());
+    }
+
+    @Test
+    public void setsIncrementOnTopOfServerSteps() {
+        OfflineJournal journal = new OfflineJournal(file);
+        journal.append(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID, 5);
+
+        long incNum = journal.claim(OfflineJournal.OP_INCREMENT).get(ACHIEVEMENT_ID);
+        assertEquals(15, journal.incrementToSteps(ACHIEVEMENT_ID, incNum, 10));
+
+        assertFalse(journal.contains(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID));
+        assertEquals(Long.valueOf(15),
+                journal.claim(OfflineJournal.OP_STEPS).get(ACHIEVEMENT_ID));
+    }
+
+    @Test
+    public void setsIncrementOnTopOfPendingSteps() {
+        OfflineJournal journal = new OfflineJournal(file);
+        journal.append(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID, 5);
+        journal.incrementToSteps(ACHIEVEMENT_ID,
+                journal.claim(OfflineJournal.OP_INCREMENT).get(ACHIEVEMENT_ID), 10);
+        // the steps are in flight, the server didn't confirm them yet
+        journal.claim(OfflineJournal.OP_STEPS);
+        journal.append(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID, 3);
+
+        assertEquals(18, journal.incrementToSteps(ACHIEVEMENT_ID,
+                journal.claim(OfflineJournal.OP_INCREMENT).get(ACHIEVEMENT_ID), 10));
+    }
+
+    @Test
+    public void replaysStepsInFlightOnce() {
+        OfflineJournal journal = new OfflineJournal(file);
+        journal.append(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID, 5);
+        journal.incrementToSteps(ACHIEVEMENT_ID,
+                journal.claim(OfflineJournal.OP_INCREMENT).get(ACHIEVEMENT_ID), 10);
+        journal.claim(OfflineJournal.OP_STEPS);
+        journal.flushBlocking(TIMEOUT_MS);
+
+        // the process died after the server set the steps, before the journal completed them
+        OfflineJournal reloaded = new OfflineJournal(file);
+        assertFalse(reloaded.contains(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID));
+        assertEquals(Long.valueOf(15),
+                reloaded.claim(OfflineJournal.OP_STEPS).get(ACHIEVEMENT_ID));
+        reloaded.complete(OfflineJournal.OP_STEPS, ACHIEVEMENT_ID, 15);
+        reloaded.append(OfflineJournal.OP_INCREMENT, ACHIEVEMENT_ID, 3);
+
+        // the server has the replayed 15 steps once
+        assertEquals(18, reloaded.incrementToSteps(ACHIEVEMENT_ID,
+                reloaded.claim(OfflineJournal.OP_INCREMENT).get(ACHIEVEMENT_ID), 15));
+    }
+
+    @Test
+    public void parsesScoreKey() {
+        String key = OfflineJournal.scoreKey(LEADERBOARD_ID,
+                Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER, OfflineJournal.WINDOW_WEEKLY, 2900);
+
+        assertEquals(LEADERBOARD_ID, OfflineJournal.leaderboardIdOf(key));
+        assertEquals(Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER, OfflineJournal.scoreOrderOf(key));
+        assertEquals(LEADERBOARD_ID, OfflineJournal.leaderboardIdOf(LEADERBOARD_ID));
+        assertEquals(Leaderboard.SCORE_ORDER_LARGER_IS_BETTER,
+                OfflineJournal.scoreOrderOf(LEADERBOARD_ID));
+    }
+
+    /**
+     * @return score -> claimed keys of the only leaderboard.
+     */
+    private static Map<Long, List<String>> claimScores(OfflineJournal journal) {
+        Map<String, Map<Long, List<String>>> leaderboards =
+                OfflineJournal.scoresByLeaderboard(journal.claim(OfflineJournal.OP_SCORE));
+        assertEquals(1, leaderboards.size());
+        return leaderboards.get(LEADERBOARD_ID);
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.almatime.gameservices;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int OPERATIONS_PER_PRODUCER = 200000;
+    // small, so producers often find the buffer full
+    private static final int CAPACITY = 64;
+    private static final long TIMEOUT_MS = 30 * 1000;
+
+    /**
+     * Checks the values of each id arrive in the order offered. Runs on the worker thread only.
+     */
+    private static class OrderCheckingConsumer implements OperationRingBuffer.Consumer {
+
+        final Map<String, Long> lastValues = new HashMap<String, Long>();
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        int consumed;
+
+        @Override
+        public void consume(int op, String id, long value) {
+            Long last = lastValues.get(id);
+            if (value != ((last != null) ? last + 1 : 0)) {
+                outOfOrder.incrementAndGet();
+            }
+            lastValues.put(id, value);
+            consumed++;
+        }
+    }
+
+    @Test
+    public void multipleProducersLoseNothingAndKeepOrderPerId() throws Exception {
+        OrderCheckingConsumer consumer = new OrderCheckingConsumer();
+        final OperationRingBuffer ring = new OperationRingBuffer(CAPACITY, consumer);
+        ring.start();
+        final CountDownLatch startGate = new CountDownLatch(1);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final String id = "producer" + p;
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startGate.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < OPERATIONS_PER_PRODUCER; i++) {
+                        ring.offer(OperationRingBuffer.OP_INCREMENT, id, i);
+                    }
+                }
+            });
+            producers[p].start();
+        }
+        startGate.countDown();
+        for (Thread producer : producers) {
+            producer.join(TIMEOUT_MS);
+            assertTrue("producer is stuck", !producer.isAlive());
+        }
+        ring.awaitConsumed(TIMEOUT_MS);
+
+        assertEquals(PRODUCERS * OPERATIONS_PER_PRODUCER, consumer.consumed);
+        assertEquals(0, consumer.outOfOrder.get());
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(Long.valueOf(OPERATIONS_PER_PRODUCER - 1),
+                    consumer.lastValues.get("producer" + p));
+        }
+    }
+
+    @Test
+    public void offerFailsWhenFullBeforeStart() {
+        OrderCheckingConsumer consumer = new OrderCheckingConsumer();
+        OperationRingBuffer ring = new OperationRingBuffer(4, consumer);
+        for (int i = 0; i < 4; i++) {
+            ring.offer(OperationRingBuffer.OP_UNLOCK, "achievement", i);
+        }
+        try {
+            ring.offer(OperationRingBuffer.OP_UNLOCK, "achievement", 4);
+            fail("offer to a full buffer before start must fail");
+        } catch (IllegalStateException expected) {
+        }
+
+        // operations offered before start are kept
+        ring.start();
+        ring.awaitConsumed(TIMEOUT_MS);
+        assertEquals(4, consumer.consumed);
+        assertEquals(0, consumer.outOfOrder.get());
+    }
+
+    @Test
+    public void awaitConsumedWaitsUntilConsumerReturns() {
+        final AtomicInteger returned = new AtomicInteger();
+        OperationRingBuffer ring = new OperationRingBuffer(4, new OperationRingBuffer.Consumer() {
+            @Override
+            public void consume(int op, String id, long value) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                returned.incrementAndGet();
+            }
+        });
+        ring.start();
+        ring.offer(OperationRingBuffer.OP_FLUSH, null, 0);
+        ring.awaitConsumed(TIMEOUT_MS);
+
+        assertEquals(1, returned.get());
+    }
+
+}
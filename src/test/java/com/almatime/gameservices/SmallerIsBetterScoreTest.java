@@ -0,0 +1,78 @@
+package com.almatime.gameservices;
+
+import com.google.android.gms.games.leaderboard.Leaderboard;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Submits scores of a smaller is better leaderboard online and offline, both must keep the min.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class SmallerIsBetterScoreTest {
+
+    private static final String LEADERBOARD_ID = "lap_time";
+    private static final long[] SCORES = {100, 50, 70};
+
+    private GameServices gameServices;
+    private OfflineJournal journal;
+
+    @Before
+    public void setUp() {
+        gameServices = GameServices.GetInstance();
+        journal = gameServices.journalOf(RuntimeEnvironment.application);
+        for (Map.Entry<String, Long> entry : journal.claim(OfflineJournal.OP_SCORE).entrySet()) {
+            journal.complete(OfflineJournal.OP_SCORE, entry.getKey(), entry.getValue());
+        }
+        gameServices.setLeaderboardScoreOrder(LEADERBOARD_ID,
+                Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER);
+    }
+
+    @Test
+    public void bufferSendsMinScore() {
+        final Map<String, Long> sent = new HashMap<String, Long>();
+        CoalescingBuffer buffer = new CoalescingBuffer(new CoalescingBuffer.Sender() {
+            @Override
+            public void send(String id, long value) {
+                sent.put(id, value);
+            }
+        }, 1000);
+        for (long score : SCORES) {
+            buffer.offer(LEADERBOARD_ID, score, Leaderboard.SCORE_ORDER_SMALLER_IS_BETTER);
+        }
+
+        buffer.flush();
+
+        assertEquals(Long.valueOf(50), sent.get(LEADERBOARD_ID));
+    }
+
+    @Test
+    public void journalReplaysMinScore() {
+        // not signed in, the scores are journaled
+        for (long score : SCORES) {
+            assertNull(gameServices.submitScoreImmediate(LEADERBOARD_ID, score));
+        }
+
+        Map<String, Map<Long, List<String>>> replayed =
+                OfflineJournal.scoresByLeaderboard(journal.claim(OfflineJournal.OP_SCORE));
+
+        assertEquals(1, replayed.size());
+        Map<Long, List<String>> scores = replayed.get(LEADERBOARD_ID);
+        assertEquals(1, scores.size());
+        // the daily, weekly and all time best, sent once
+        assertEquals(3, scores.get(50L).size());
+    }
+
+}